@@ -0,0 +1,17 @@
+package benchmarks;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a benchmark that must not allocate. When Main runs it with the gc
+ * profiler, the run fails unless gc.alloc.rate.norm rounds to 0 bytes per
+ * operation, so a change that makes the search create garbage again is
+ * caught.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface AllocationFree {
+}
@@ -0,0 +1,77 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The cost of turning a cube into the coordinates the pattern databases
+ * are indexed by: ranking the stickers with Cube.rankCorners and
+ * Cube.rankEdges, packing them into a CubeState, and ranking a CubeState
+ * that is already packed.
+ *
+ * The states are scrambled to different depths so the ranks are not
+ * constant folded.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EncodeBenchmark {
+
+	private static final int STATES = 16;
+
+	private char[][] states;
+	private Object[] packed;
+	private int next;
+
+	@Setup
+	public void setup() throws Throwable {
+		this.states = new char[STATES][];
+		this.packed = new Object[STATES];
+		for (int i = 0; i < STATES; i++) {
+			this.states[i] = Handles.scramble(10 + i);
+			this.packed[i] = (Object) Handles.PACK.invokeExact(this.states[i]);
+		}
+	}
+
+	private int nextState() {
+		this.next = (this.next + 1) & (STATES - 1);
+		return this.next;
+	}
+
+	@Benchmark
+	public int rankCorners() throws Throwable {
+		return (int) Handles.RANK_CORNERS.invokeExact(this.states[nextState()]);
+	}
+
+	@Benchmark
+	public int rankEdges() throws Throwable {
+		char[] state = this.states[nextState()];
+		return (int) Handles.RANK_EDGES.invokeExact(state, 0) ^ (int) Handles.RANK_EDGES.invokeExact(state, 1);
+	}
+
+	@Benchmark
+	public Object pack() throws Throwable {
+		return (Object) Handles.PACK.invokeExact(this.states[nextState()]);
+	}
+
+	@Benchmark
+	public int rankPacked() throws Throwable {
+		Object packed = this.packed[nextState()];
+		return (int) Handles.PACKED_RANK_CORNERS.invokeExact(packed)
+				^ (int) Handles.PACKED_RANK_EDGES.invokeExact(packed, 0)
+				^ (int) Handles.PACKED_RANK_EDGES.invokeExact(packed, 1);
+	}
+}
@@ -0,0 +1,141 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * How many nodes per second a search can generate: every operation is one
+ * successor, so the score is in nodes per second. Expanding a node makes
+ * all 18 moves and estimates each successor, either on the coordinates
+ * the Solver searches with, on the stickers with Successors, which writes
+ * them into arrays it reuses, or with the old CubeNode.getSuccessors,
+ * which builds a node with a new state and path for every successor. The
+ * coordinates are also expanded without the heuristic, to show how much
+ * of the time goes to the pattern database lookups.
+ *
+ * The heuristic is the one of the solver config, so this has to run in a
+ * directory with the tables, see SolverConfig. After each expansion the
+ * search walks on to one of the successors, so the lookups are spread
+ * over the tables the way they are in a search.
+ *
+ * Every benchmark but cubeNode must not allocate, see AllocationFree.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ExpandBenchmark {
+
+	private static final int MOVES = 18;
+
+	private Object heuristic;
+	private int corners;
+	private int edgesSetOne;
+	private int edgesSetTwo;
+	private Object node;
+	private Object successors;
+	private Object visitor;
+	private int step;
+
+	@Setup
+	public void setup() throws Throwable {
+		this.heuristic = (Object) Handles.DEFAULT_HEURISTIC.invokeExact();
+		char[] state = Handles.scramble(20);
+		this.corners = (int) Handles.RANK_CORNERS.invokeExact(state);
+		this.edgesSetOne = (int) Handles.RANK_EDGES.invokeExact(state, 0);
+		this.edgesSetTwo = (int) Handles.RANK_EDGES.invokeExact(state, 1);
+		this.node = (Object) Handles.NEW_NODE.invokeExact(state, 0);
+		this.successors = (Object) Handles.NEW_SUCCESSORS.invokeExact(this.heuristic, 1);
+		Handles.SUCCESSORS_RESET.invokeExact(this.successors, state);
+	}
+
+	/**
+	 * Makes the visitor of the successors benchmark, which needs its blackhole.
+	 */
+	@Setup
+	public void setupVisitor(Blackhole blackhole) {
+		this.visitor = Handles.visitor(MethodHandles.lookup(), ExpandBenchmark.class, "consume", blackhole);
+	}
+
+	private static boolean consume(Blackhole blackhole, int move, char[] state, int heuristic) {
+		blackhole.consume(heuristic);
+		return true;
+	}
+
+	/**
+	 * The move to walk on with, which never undoes the one before.
+	 */
+	private int nextStep() {
+		this.step = (this.step + 4) % MOVES;
+		return this.step;
+	}
+
+	@Benchmark
+	@AllocationFree
+	@OperationsPerInvocation(MOVES)
+	public void coordinates(Blackhole blackhole) throws Throwable {
+		for (int move = 0; move < MOVES; move++) {
+			int corners = (int) Handles.MOVE_CORNERS.invokeExact(this.corners, move);
+			int edgesSetOne = (int) Handles.MOVE_EDGES.invokeExact(this.edgesSetOne, move);
+			int edgesSetTwo = (int) Handles.MOVE_EDGES.invokeExact(this.edgesSetTwo, move);
+			blackhole.consume((int) Handles.ESTIMATE.invokeExact(this.heuristic, corners, edgesSetOne, edgesSetTwo));
+		}
+		int step = nextStep();
+		this.corners = (int) Handles.MOVE_CORNERS.invokeExact(this.corners, step);
+		this.edgesSetOne = (int) Handles.MOVE_EDGES.invokeExact(this.edgesSetOne, step);
+		this.edgesSetTwo = (int) Handles.MOVE_EDGES.invokeExact(this.edgesSetTwo, step);
+	}
+
+	@Benchmark
+	@AllocationFree
+	@OperationsPerInvocation(MOVES)
+	public void coordinatesWithoutHeuristic(Blackhole blackhole) throws Throwable {
+		for (int move = 0; move < MOVES; move++) {
+			blackhole.consume((int) Handles.MOVE_CORNERS.invokeExact(this.corners, move));
+			blackhole.consume((int) Handles.MOVE_EDGES.invokeExact(this.edgesSetOne, move));
+			blackhole.consume((int) Handles.MOVE_EDGES.invokeExact(this.edgesSetTwo, move));
+		}
+		int step = nextStep();
+		this.corners = (int) Handles.MOVE_CORNERS.invokeExact(this.corners, step);
+		this.edgesSetOne = (int) Handles.MOVE_EDGES.invokeExact(this.edgesSetOne, step);
+		this.edgesSetTwo = (int) Handles.MOVE_EDGES.invokeExact(this.edgesSetTwo, step);
+	}
+
+	@Benchmark
+	@AllocationFree
+	@OperationsPerInvocation(MOVES)
+	public int successors() throws Throwable {
+		// The stack is empty, so all 18 moves are made
+		int count = (int) Handles.SUCCESSORS_EXPAND.invokeExact(this.successors, this.visitor);
+		// Walk on by making the step the new bottom of the stack
+		Handles.SUCCESSORS_PUSH.invokeExact(this.successors, nextStep());
+		Handles.SUCCESSORS_RESET.invokeExact(this.successors, (char[]) Handles.SUCCESSORS_STATE.invokeExact(this.successors));
+		return count;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(MOVES)
+	public Object cubeNode() throws Throwable {
+		ArrayList<?> successors = (ArrayList<?>) Handles.SUCCESSORS.invokeExact(this.node);
+		// A fresh node, so the path of the walk doesn't grow
+		char[] state = (char[]) Handles.NODE_STATE.invokeExact((Object) successors.get(nextStep()));
+		this.node = (Object) Handles.NEW_NODE.invokeExact(state, 0);
+		return successors;
+	}
+}
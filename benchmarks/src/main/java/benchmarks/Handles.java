@@ -0,0 +1,233 @@
+package benchmarks;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Method handles for the classes of the solver. They are in the default
+ * package, which can't be imported from a package, and JMH only runs
+ * benchmarks that are in a package. The handles are constants, so the JIT
+ * inlines them like direct calls and they don't allocate.
+ *
+ * The packed CubeState and the solver's own objects are passed around as
+ * Object.
+ */
+final class Handles {
+
+	static final MethodHandle ROTATE;
+	static final MethodHandle MOVE_APPLY;
+	static final MethodHandle MOVE_CORNERS;
+	static final MethodHandle MOVE_EDGES;
+	static final MethodHandle RANK_CORNERS;
+	static final MethodHandle RANK_EDGES;
+	static final MethodHandle PACK;
+	static final MethodHandle PACKED_MOVE;
+	static final MethodHandle PACKED_RANK_CORNERS;
+	static final MethodHandle PACKED_RANK_EDGES;
+	static final MethodHandle READ_CUBE;
+	static final MethodHandle CUBE_STATE;
+	static final MethodHandle NEW_NODE;
+	static final MethodHandle NODE_STATE;
+	static final MethodHandle SUCCESSORS;
+	static final MethodHandle NEW_SUCCESSORS;
+	static final MethodHandle SUCCESSORS_RESET;
+	static final MethodHandle SUCCESSORS_STATE;
+	static final MethodHandle SUCCESSORS_EXPAND;
+	static final MethodHandle SUCCESSORS_PUSH;
+	static final MethodHandle DEFAULT_HEURISTIC;
+	static final MethodHandle ESTIMATE;
+	static final MethodHandle DEFAULT_CONFIG;
+	static final MethodHandle CONFIG_HEURISTIC;
+	static final MethodHandle CONFIG_METRIC;
+	static final MethodHandle CONFIG_FRONTIER;
+	static final MethodHandle NEW_SOLVER;
+	static final MethodHandle SOLVE;
+	static final MethodHandle FOUND;
+	static final MethodHandle NODES;
+
+	/**
+	 * The serialized representation of the goal state, Cube.GOAL.
+	 */
+	static final String GOAL;
+
+	/**
+	 * Successors.Visitor, which a benchmark can't implement in source.
+	 */
+	private static final Class<?> VISITOR;
+
+	static {
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+			Class<?> cube = Class.forName("Cube");
+			Class<?> move = Class.forName("Move");
+			Class<?> moveTables = Class.forName("MoveTables");
+			Class<?> cubeState = Class.forName("CubeState");
+			Class<?> cubeNode = Class.forName("CubeNode");
+			Class<?> successors = Class.forName("Successors");
+			VISITOR = Class.forName("Successors$Visitor");
+			Class<?> heuristic = Class.forName("Heuristic");
+			Class<?> idaStar = Class.forName("IDAStar");
+			Class<?> solverConfig = Class.forName("SolverConfig");
+			Class<?> metric = Class.forName("Metric");
+			Class<?> frontier = Class.forName("Frontier");
+			Class<?> solver = Class.forName("Solver");
+			Class<?> solution = Class.forName("Solution");
+			MethodType object = MethodType.methodType(Object.class);
+
+			ROTATE = lookup.findStatic(cube, "rotate",
+					MethodType.methodType(char[].class, char[].class, Character.class, int.class));
+			MOVE_APPLY = lookup.findStatic(move, "apply",
+					MethodType.methodType(void.class, char[].class, int.class, char[].class));
+			MOVE_CORNERS = lookup.findStatic(moveTables, "moveCorners",
+					MethodType.methodType(int.class, int.class, int.class));
+			MOVE_EDGES = lookup.findStatic(moveTables, "moveEdges",
+					MethodType.methodType(int.class, int.class, int.class));
+			RANK_CORNERS = lookup.findStatic(cube, "rankCorners", MethodType.methodType(int.class, char[].class));
+			RANK_EDGES = lookup.findStatic(cube, "rankEdges",
+					MethodType.methodType(int.class, char[].class, int.class));
+			PACK = lookup.findStatic(cubeState, "of", MethodType.methodType(cubeState, char[].class))
+					.asType(MethodType.methodType(Object.class, char[].class));
+			PACKED_MOVE = lookup.findVirtual(cubeState, "move", MethodType.methodType(cubeState, int.class))
+					.asType(MethodType.methodType(Object.class, Object.class, int.class));
+			PACKED_RANK_CORNERS = lookup.findVirtual(cubeState, "rankCorners", MethodType.methodType(int.class))
+					.asType(MethodType.methodType(int.class, Object.class));
+			PACKED_RANK_EDGES = lookup.findVirtual(cubeState, "rankEdges", MethodType.methodType(int.class, int.class))
+					.asType(MethodType.methodType(int.class, Object.class, int.class));
+			READ_CUBE = lookup.findConstructor(cube, MethodType.methodType(void.class, String.class))
+					.asType(MethodType.methodType(Object.class, String.class));
+			CUBE_STATE = lookup.findGetter(cube, "state", char[].class)
+					.asType(MethodType.methodType(char[].class, Object.class));
+			NEW_NODE = lookup.findConstructor(cubeNode, MethodType.methodType(void.class, char[].class, int.class))
+					.asType(MethodType.methodType(Object.class, char[].class, int.class));
+			NODE_STATE = lookup.findGetter(cubeNode, "state", char[].class)
+					.asType(MethodType.methodType(char[].class, Object.class));
+			SUCCESSORS = lookup.findStatic(cubeNode, "getSuccessors",
+					MethodType.methodType(java.util.ArrayList.class, cubeNode))
+					.asType(MethodType.methodType(java.util.ArrayList.class, Object.class));
+			NEW_SUCCESSORS = lookup.findConstructor(successors, MethodType.methodType(void.class, heuristic, int.class))
+					.asType(MethodType.methodType(Object.class, Object.class, int.class));
+			SUCCESSORS_RESET = lookup.findVirtual(successors, "reset", MethodType.methodType(void.class, char[].class))
+					.asType(MethodType.methodType(void.class, Object.class, char[].class));
+			SUCCESSORS_STATE = lookup.findVirtual(successors, "state", MethodType.methodType(char[].class))
+					.asType(MethodType.methodType(char[].class, Object.class));
+			SUCCESSORS_EXPAND = lookup.findVirtual(successors, "expand", MethodType.methodType(int.class, VISITOR))
+					.asType(MethodType.methodType(int.class, Object.class, Object.class));
+			SUCCESSORS_PUSH = lookup.findVirtual(successors, "push", MethodType.methodType(void.class, int.class))
+					.asType(MethodType.methodType(void.class, Object.class, int.class));
+			DEFAULT_HEURISTIC = lookup.findStaticGetter(idaStar, "heuristic", heuristic).asType(object);
+			ESTIMATE = lookup.findVirtual(heuristic, "estimate",
+					MethodType.methodType(int.class, int.class, int.class, int.class))
+					.asType(MethodType.methodType(int.class, Object.class, int.class, int.class, int.class));
+			DEFAULT_CONFIG = lookup.findStaticGetter(idaStar, "config", solverConfig).asType(object);
+			CONFIG_HEURISTIC = lookup.findGetter(solverConfig, "heuristic", heuristic)
+					.asType(MethodType.methodType(Object.class, Object.class));
+			CONFIG_METRIC = lookup.findGetter(solverConfig, "metric", metric)
+					.asType(MethodType.methodType(Object.class, Object.class));
+			CONFIG_FRONTIER = lookup.findGetter(solverConfig, "frontier", frontier)
+					.asType(MethodType.methodType(Object.class, Object.class));
+			NEW_SOLVER = lookup.findConstructor(solver,
+					MethodType.methodType(void.class, heuristic, metric, ForkJoinPool.class, frontier))
+					.asType(MethodType.methodType(Object.class, Object.class, Object.class, Object.class, Object.class));
+			SOLVE = lookup.findVirtual(solver, "solve",
+					MethodType.methodType(solution, char[].class, long.class))
+					.asType(MethodType.methodType(Object.class, Object.class, char[].class, long.class));
+			FOUND = lookup.findGetter(solution, "found", boolean.class)
+					.asType(MethodType.methodType(boolean.class, Object.class));
+			NODES = lookup.findGetter(solution, "nodes", long.class)
+					.asType(MethodType.methodType(long.class, Object.class));
+			GOAL = (String) cube.getField("GOAL").get(null);
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	private Handles() {
+	}
+
+	/**
+	 * Implements Successors.Visitor with a static method, like a lambda.
+	 * @param caller a lookup that can see the method
+	 * @param owner the class of the method
+	 * @param name the method, which takes the captured value followed by
+	 *        the arguments of Successors.Visitor.visit
+	 * @param captured the first argument of every call
+	 * @return the visitor
+	 */
+	static Object visitor(MethodHandles.Lookup caller, Class<?> owner, String name, Object captured) {
+		MethodType visit = MethodType.methodType(boolean.class, int.class, char[].class, int.class);
+		try {
+			MethodHandle target = null;
+			for (Method method : owner.getDeclaredMethods()) {
+				if (method.getName().equals(name)) {
+					target = caller.unreflect(method);
+				}
+			}
+			if (target == null) {
+				throw new NoSuchMethodException(owner.getName() + "." + name);
+			}
+			CallSite site = LambdaMetafactory.metafactory(caller, "visit",
+					MethodType.methodType(VISITOR, target.type().parameterType(0)), visit, target, visit);
+			return site.getTarget().invoke(captured);
+		} catch (Throwable e) {
+			throw new RuntimeException("Could not make a visitor of " + name, e);
+		}
+	}
+
+	/**
+	 * Builds a solver with the tables and the frontier of the solver config
+	 * that searches on the calling thread. Unlike IDAStar.solver it has no
+	 * transposition table or solution cache, which would carry what the
+	 * warmup solved over to the measured iterations.
+	 * @return the solver
+	 */
+	static Object solver() {
+		try {
+			Object config = (Object) DEFAULT_CONFIG.invokeExact();
+			return (Object) NEW_SOLVER.invokeExact((Object) CONFIG_HEURISTIC.invokeExact(config),
+					(Object) CONFIG_METRIC.invokeExact(config), (Object) null,
+					(Object) CONFIG_FRONTIER.invokeExact(config));
+		} catch (Throwable e) {
+			throw new RuntimeException("Could not build a solver", e);
+		}
+	}
+
+	/**
+	 * Reads a cube file, see Cube(String).
+	 * @param fileName the file
+	 * @return the state of the cube
+	 */
+	static char[] read(String fileName) {
+		try {
+			return (char[]) CUBE_STATE.invokeExact((Object) READ_CUBE.invokeExact(fileName));
+		} catch (Throwable e) {
+			throw new RuntimeException("Could not read " + fileName, e);
+		}
+	}
+
+	/**
+	 * Scrambles the solved cube with a fixed sequence of moves, so every run
+	 * benchmarks the same state.
+	 * @param moves the number of moves
+	 * @return the state of the cube
+	 */
+	static char[] scramble(int moves) {
+		char[] state = GOAL.toCharArray();
+		char[] next = new char[state.length];
+		try {
+			for (int i = 0; i < moves; i++) {
+				MOVE_APPLY.invokeExact(state, (i * 7 + 3) % 18, next);
+				char[] swap = state;
+				state = next;
+				next = swap;
+			}
+		} catch (Throwable e) {
+			throw new RuntimeException(e);
+		}
+		return state;
+	}
+}
@@ -0,0 +1,97 @@
+package benchmarks;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the JMH command line, eg:
+ *   java -jar benchmarks/target/benchmarks.jar
+ *   java -jar benchmarks/target/benchmarks.jar MoveBenchmark -rff move.json
+ * Unless the arguments say otherwise, every benchmark also reports its
+ * allocation rate with the gc profiler, and the results are written as
+ * JSON to jmh-result.json, which can be kept for each commit and compared.
+ * With the gc profiler, the run fails if a benchmark marked AllocationFree
+ * allocated.
+ *
+ * Run it in the directory with the tables and the input directory, since
+ * ExpandBenchmark and SolveBenchmark use the solver config.
+ */
+public class Main {
+
+	/**
+	 * The file the results are written to unless -rff names another.
+	 */
+	public static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+	/**
+	 * The bytes per operation the gc profiler reports for a benchmark that
+	 * doesn't allocate are a tiny fraction from the harness itself.
+	 */
+	private static final double ALLOCATION_FREE_BYTES = 0.5;
+
+	public static void main(String[] args) throws Exception {
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+		if (commandLine.shouldHelp() || commandLine.shouldList() || commandLine.shouldListProfilers()
+				|| commandLine.shouldListResultFormats() || commandLine.shouldListWithParams()) {
+			org.openjdk.jmh.Main.main(args);
+			return;
+		}
+		OptionsBuilder options = new OptionsBuilder();
+		options.parent(commandLine);
+		if (commandLine.getProfilers().isEmpty()) {
+			options.addProfiler(GCProfiler.class);
+		}
+		if (!commandLine.getResultFormat().hasValue()) {
+			options.resultFormat(ResultFormatType.JSON);
+		}
+		if (!commandLine.getResult().hasValue()) {
+			options.result(DEFAULT_RESULT_FILE);
+		}
+		Collection<RunResult> results = new Runner(options.build()).run();
+		if (!checkAllocations(results)) {
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Checks that the benchmarks marked AllocationFree didn't allocate.
+	 * @param results the results of the run
+	 * @return false if one of them allocated
+	 */
+	private static boolean checkAllocations(Collection<RunResult> results) throws ClassNotFoundException {
+		boolean allocationFree = true;
+		for (RunResult result : results) {
+			Result<?> allocated = result.getSecondaryResults().get("gc.alloc.rate.norm");
+			String benchmark = result.getParams().getBenchmark();
+			if (allocated == null || !isAllocationFree(benchmark)) {
+				continue;
+			}
+			if (allocated.getScore() > ALLOCATION_FREE_BYTES) {
+				System.err.println(benchmark + " must not allocate, but allocated " + allocated.getScore() + " B/op");
+				allocationFree = false;
+			} else {
+				System.out.println(benchmark + " allocated 0 B/op");
+			}
+		}
+		return allocationFree;
+	}
+
+	private static boolean isAllocationFree(String benchmark) throws ClassNotFoundException {
+		int dot = benchmark.lastIndexOf('.');
+		Class<?> type = Class.forName(benchmark.substring(0, dot));
+		for (Method method : type.getMethods()) {
+			if (method.getName().equals(benchmark.substring(dot + 1)) && method.isAnnotationPresent(AllocationFree.class)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,81 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The cost of applying one move to each representation of a cube: turning
+ * the stickers with Cube.rotate, which allocates a new state, or with
+ * Move.apply into an existing array, moving the coordinates of the search
+ * with MoveTables, and moving a packed CubeState.
+ *
+ * The moves cycle through all 18 so that no move is constant folded.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MoveBenchmark {
+
+	private static final char[] FACES = {'R', 'O', 'G', 'B', 'Y', 'W'};
+
+	private char[] state;
+	private char[] next;
+	private int corners;
+	private int edgesSetOne;
+	private int edgesSetTwo;
+	private Object packed;
+	private int move;
+
+	@Setup
+	public void setup() throws Throwable {
+		this.state = Handles.scramble(20);
+		this.next = new char[this.state.length];
+		this.corners = (int) Handles.RANK_CORNERS.invokeExact(this.state);
+		this.edgesSetOne = (int) Handles.RANK_EDGES.invokeExact(this.state, 0);
+		this.edgesSetTwo = (int) Handles.RANK_EDGES.invokeExact(this.state, 1);
+		this.packed = (Object) Handles.PACK.invokeExact(this.state);
+	}
+
+	private int nextMove() {
+		this.move = this.move == 17 ? 0 : this.move + 1;
+		return this.move;
+	}
+
+	@Benchmark
+	public char[] rotate() throws Throwable {
+		int move = nextMove();
+		return (char[]) Handles.ROTATE.invokeExact(this.state, (Character) FACES[move / 3], move % 3 + 1);
+	}
+
+	@Benchmark
+	public char[] apply() throws Throwable {
+		Handles.MOVE_APPLY.invokeExact(this.state, nextMove(), this.next);
+		return this.next;
+	}
+
+	@Benchmark
+	public int coordinates() throws Throwable {
+		int move = nextMove();
+		return (int) Handles.MOVE_CORNERS.invokeExact(this.corners, move)
+				^ (int) Handles.MOVE_EDGES.invokeExact(this.edgesSetOne, move)
+				^ (int) Handles.MOVE_EDGES.invokeExact(this.edgesSetTwo, move);
+	}
+
+	@Benchmark
+	public Object packed() throws Throwable {
+		return (Object) Handles.PACKED_MOVE.invokeExact(this.packed, nextMove());
+	}
+}
@@ -0,0 +1,86 @@
+package benchmarks;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The time a solver with the tables of the solver config takes to solve
+ * the bundled cubes optimally, grouped by the length of their optimal
+ * solution in the half-turn metric. One operation solves every cube of a
+ * bucket. The solver has no solution cache or transposition table, so
+ * every operation searches as much as the first.
+ *
+ * This has to run in a directory with the tables and the input directory,
+ * see SolverConfig. The cubes the default tables can't solve within a few
+ * million nodes, cube16 and cube18 to cube20, are left out.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SolveBenchmark {
+
+	/**
+	 * The number of nodes a solve may visit before the benchmark fails.
+	 */
+	private static final long LIMIT = 50000000L;
+
+	/**
+	 * The optimal length of the cubes of the buckets, a range of moves.
+	 */
+	@Param({"0-5", "6-8", "10-11", "14"})
+	public String depth;
+
+	private Object solver;
+	private char[][] cubes;
+
+	@Setup
+	public void setup() throws Throwable {
+		this.solver = Handles.solver();
+		String[] names = bucket(this.depth);
+		this.cubes = new char[names.length][];
+		for (int i = 0; i < names.length; i++) {
+			this.cubes[i] = Handles.read("input" + File.separator + names[i]);
+		}
+	}
+
+	private static String[] bucket(String depth) {
+		if (depth.equals("0-5")) {
+			return new String[] {"cube00", "cube01", "cube02", "cube03", "cube04", "cube05", "cube07", "cube09"};
+		} else if (depth.equals("6-8")) {
+			return new String[] {"cube06", "cube08", "cube10", "cube11"};
+		} else if (depth.equals("10-11")) {
+			return new String[] {"cube12", "cube13", "cube14", "cube15"};
+		} else if (depth.equals("14")) {
+			return new String[] {"cube17"};
+		}
+		throw new IllegalArgumentException("Unknown bucket " + depth);
+	}
+
+	@Benchmark
+	public long solve() throws Throwable {
+		long nodes = 0;
+		for (char[] cube : this.cubes) {
+			Object solution = (Object) Handles.SOLVE.invokeExact(this.solver, cube, LIMIT);
+			if (!(boolean) Handles.FOUND.invokeExact(solution)) {
+				throw new IllegalStateException("A cube was not solved within " + LIMIT + " nodes");
+			}
+			nodes += (long) Handles.NODES.invokeExact(solution);
+		}
+		return nodes;
+	}
+}
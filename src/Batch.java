@@ -0,0 +1,259 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Solves many cubes in one JVM, so the tables are only loaded once.
+ *
+ * The cubes are read either from a directory of cube files or from a file
+ * (or standard input) with one state per line, written as the 54 stickers
+ * in the same order as Cube.GOAL. Blank lines and lines starting with #
+ * are skipped. The cubes are solved on a pool of worker threads, each one
+ * on a single thread with one shared Solver, and a result is
+ * printed as soon as its cube is done, so results come out in the order
+ * they finish rather than the order they were read.
+ *
+ * With -mode twophase the cubes are solved with Kociemba's two-phase
+ * algorithm instead, which finds short rather than optimal solutions in
+ * milliseconds. It then uses the timeout to look for shorter solutions,
+ * and stops early once one has at most -length moves.
+ *
+ * Every result has a status:
+ *   solved   the moves are an optimal solution, or in two-phase mode the
+ *            shortest one found
+ *   timeout  the cube took longer than the timeout
+ *   limit    the search visited more nodes than the limit
+ *   invalid  the state is not a valid cube
+ */
+public class Batch {
+
+	/**
+	 * One cube to solve. A valid cube waits in the queue packed into a
+	 * CubeState, only an invalid one keeps the stickers it was read as.
+	 */
+	private static class Job implements Callable<String> {
+		private final Solver solver;
+		private final String id;
+		private final CubeState state;
+		private final String invalid;
+		private final long limit;
+		private final long timeoutMillis;
+		private final boolean json;
+
+		Job(Solver solver, String id, char[] state, long limit, long timeoutMillis, boolean json) {
+			this.solver = solver;
+			this.id = id;
+			// A state that can't be solved would keep the search going until the limit
+			this.state = CubeValidator.validate(state) == CubeValidator.Reason.VALID ? CubeState.of(state) : null;
+			this.invalid = this.state == null ? new String(state) : null;
+			this.limit = limit;
+			this.timeoutMillis = timeoutMillis;
+			this.json = json;
+		}
+
+		@Override
+		public String call() {
+			if (this.state == null) {
+				return format(this.id, this.invalid, null, this.json);
+			}
+			return format(this.id, this.state.toString(), this.solver.solve(this.state, this.limit, this.timeoutMillis),
+					this.json);
+		}
+	}
+
+	/**
+	 * Formats the result of one cube as a line of JSON or CSV.
+	 * @param id the name of the cube
+	 * @param state the state of the cube
+	 * @param solution the solution, or null if the state is not a valid cube
+	 * @param json true for a line of JSON, false for CSV
+	 * @return the line, without a line break
+	 */
+	static String format(String id, String state, Solution solution, boolean json) {
+		String status = solution == null ? "invalid" : solution.found ? "solved" : solution.timedOut ? "timeout" : "limit";
+		String moves = solution == null ? "" : solution.toString();
+		int length = solution != null && solution.found ? solution.cost : -1;
+		long nodes = solution == null ? 0 : solution.nodes;
+		long millis = solution == null ? 0 : solution.nanos / 1000000;
+		if (json) {
+			return "{\"id\":\"" + escape(id) + "\",\"state\":\"" + escape(state)
+					+ "\",\"status\":\"" + status + "\",\"moves\":\"" + moves + "\",\"length\":" + length
+					+ ",\"nodes\":" + nodes + ",\"millis\":" + millis + "}";
+		}
+		return csv(id) + "," + csv(state) + "," + status + "," + moves + "," + length + "," + nodes + "," + millis;
+	}
+
+	/**
+	 * Escapes a string for use inside a JSON string.
+	 */
+	private static String escape(String s) {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c == '"' || c == '\\') {
+				builder.append('\\').append(c);
+			} else if (c < ' ') {
+				builder.append(String.format("\\u%04x", (int) c));
+			} else {
+				builder.append(c);
+			}
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Quotes a CSV field if it has to be.
+	 */
+	private static String csv(String s) {
+		if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0) {
+			return s;
+		}
+		return "\"" + s.replace("\"", "\"\"") + "\"";
+	}
+
+	/**
+	 * Solves the cubes and prints the results as they finish.
+	 * At most twice as many cubes as there are threads are read ahead,
+	 * so a stream of any length can be solved in constant memory.
+	 */
+	private static class Runner {
+		private final ExecutorService executor;
+		private final CompletionService<String> completion;
+		private final int maxPending;
+		private final PrintStream out;
+		private int pending;
+
+		Runner(int threads, PrintStream out) {
+			this.executor = Executors.newFixedThreadPool(threads);
+			this.completion = new ExecutorCompletionService<String>(this.executor);
+			this.maxPending = threads * 2;
+			this.out = out;
+		}
+
+		void submit(Job job) throws InterruptedException, ExecutionException {
+			if (this.pending == this.maxPending) {
+				printNext();
+			}
+			this.completion.submit(job);
+			this.pending++;
+		}
+
+		void finish() throws InterruptedException, ExecutionException {
+			while (this.pending > 0) {
+				printNext();
+			}
+			this.executor.shutdown();
+		}
+
+		private void printNext() throws InterruptedException, ExecutionException {
+			this.out.println(this.completion.take().get());
+			this.out.flush();
+			this.pending--;
+		}
+	}
+
+	/**
+	 * Runs a batch.
+	 * Usage: java Batch [-threads n] [-timeout seconds] [-limit nodes] [-format jsonl|csv]
+	 *                   [-mode optimal|twophase] [-length moves] [-progress seconds] [input]
+	 * The input is a directory of cube files, a file with one state per line,
+	 * or - for standard input, which is also the default. With -progress the
+	 * progress of every cube that takes longer is printed to standard error
+	 * that often, and the counts of the searches are shown over JMX as
+	 * rubikscube:type=Solver,name="batch", see SolverMetrics.
+	 * @param args
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+		int threads = Runtime.getRuntime().availableProcessors();
+		long timeoutMillis = 0;
+		long limit = 0;
+		boolean json = true;
+		Solver.Mode mode = null;
+		int targetLength = 0;
+		long progressMillis = 0;
+		String input = "-";
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-threads") && i + 1 < args.length) {
+				threads = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-timeout") && i + 1 < args.length) {
+				timeoutMillis = (long) (Double.parseDouble(args[++i]) * 1000);
+			} else if (args[i].equals("-limit") && i + 1 < args.length) {
+				limit = Long.parseLong(args[++i]);
+			} else if (args[i].equals("-mode") && i + 1 < args.length) {
+				mode = Solver.Mode.parse(args[++i]);
+			} else if (args[i].equals("-length") && i + 1 < args.length) {
+				targetLength = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-progress") && i + 1 < args.length) {
+				progressMillis = (long) (Double.parseDouble(args[++i]) * 1000);
+			} else if (args[i].equals("-format") && i + 1 < args.length) {
+				String format = args[++i];
+				if (!format.equals("jsonl") && !format.equals("csv")) {
+					throw new IllegalArgumentException("Unknown format " + format + ", use jsonl or csv");
+				}
+				json = format.equals("jsonl");
+			} else {
+				input = args[i];
+			}
+		}
+
+		// Load the tables before any cube is read
+		Solver solver = IDAStar.solver;
+		if (mode != null) {
+			solver = solver.withMode(mode, targetLength);
+		}
+		if (progressMillis > 0) {
+			SolverMetrics.Listener listener = new SolverMetrics.Listener() {
+				@Override
+				public void progress(SolverMetrics.Progress progress) {
+					System.err.println(progress);
+				}
+			};
+			solver = solver.withMetrics(new SolverMetrics(listener, progressMillis).register("batch"));
+		}
+		if (!json) {
+			System.out.println("id,state,status,moves,length,nodes,millis");
+		}
+		Runner runner = new Runner(threads, System.out);
+		File file = new File(input);
+		if (file.isDirectory()) {
+			File[] files = file.listFiles();
+			Arrays.sort(files);
+			for (File cube : files) {
+				if (cube.isFile()) {
+					char[] state = new Cube(cube.getPath()).state;
+					runner.submit(new Job(solver, cube.getName(), state, limit, timeoutMillis, json));
+				}
+			}
+		} else {
+			BufferedReader reader = input.equals("-")
+					? new BufferedReader(new InputStreamReader(System.in))
+					: new BufferedReader(new FileReader(file));
+			try {
+				String line;
+				int lineNumber = 0;
+				while ((line = reader.readLine()) != null) {
+					lineNumber++;
+					line = line.trim();
+					if (line.isEmpty() || line.startsWith("#")) {
+						continue;
+					}
+					runner.submit(new Job(solver, Integer.toString(lineNumber), line.toCharArray(), limit,
+							timeoutMillis, json));
+				}
+			} finally {
+				reader.close();
+			}
+		}
+		runner.finish();
+	}
+}
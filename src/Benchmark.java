@@ -0,0 +1,186 @@
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Solves a set of cubes with several heuristic configurations and prints
+ * the nodes visited, the wall-clock time and the solution length in the
+ * metric of the tables for each, so configurations can be compared on
+ * the same cubes. The totals also show how much memory the tables of
+ * each configuration take.
+ */
+public class Benchmark {
+
+	/**
+	 * The default number of nodes a search may visit before it gives up.
+	 */
+	public final static long DEFAULT_LIMIT = 50000000L;
+
+	/**
+	 * A heuristic to compare and the tables it needs.
+	 */
+	private static class Configuration {
+		final Heuristic heuristic;
+		final Metric metric;
+		final Frontier frontier;
+		final long bytes;
+
+		Configuration(Heuristic heuristic, Metric metric, long bytes) {
+			this(heuristic, metric, null, bytes);
+		}
+
+		Configuration(Heuristic heuristic, Metric metric, Frontier frontier, long bytes) {
+			this.heuristic = heuristic;
+			this.metric = metric;
+			this.frontier = frontier;
+			this.bytes = bytes;
+		}
+
+		@Override
+		public String toString() {
+			return this.frontier == null ? this.heuristic.toString()
+					: this.heuristic + "+frontier" + this.frontier.depth;
+		}
+	}
+
+	/**
+	 * The configurations to compare on one set of tables: each table on
+	 * its own and the ways of combining them.
+	 * @param config the tables
+	 * @return the configurations
+	 */
+	private static List<Configuration> configurations(SolverConfig config) {
+		ArrayList<Configuration> configurations = new ArrayList<Configuration>();
+		configurations.add(new Configuration(config.tables.get(0), config.metric, config.corners.bytes()));
+		for (int i = 0; i < config.edges.size(); i++) {
+			configurations.add(new Configuration(config.tables.get(i + 1), config.metric,
+					config.edges.get(i).bytes()));
+		}
+		Heuristic max = config.heuristic;
+		configurations.add(new Configuration(max, config.metric, config.bytes()));
+		configurations.add(new Configuration(Heuristic.max(max, Heuristic.inverse(max)), config.metric,
+				config.bytes()));
+		return configurations;
+	}
+
+	/**
+	 * Finds the bundled input/cubeNN files.
+	 * @return the file names, sorted
+	 */
+	private static String[] defaultFiles() {
+		ArrayList<String> files = new ArrayList<String>();
+		File[] inputs = new File("input").listFiles();
+		if (inputs != null) {
+			for (File input : inputs) {
+				if (input.getName().startsWith("cube")) {
+					files.add(input.getPath());
+				}
+			}
+		}
+		String[] result = files.toArray(new String[files.size()]);
+		Arrays.sort(result);
+		return result;
+	}
+
+	/**
+	 * Runs the benchmark.
+	 * Usage: java Benchmark [-limit nodes] [-threads n] [-transpositions megabytes] [-config file]...
+	 *                       [cube files...]
+	 * Without files, every input/cube* file is solved. With -threads the
+	 * cubes are solved on a pool of that many threads. With -transpositions
+	 * every configuration gets a transposition table of that size, which is
+	 * cleared before each cube, and the totals count its hits, misses,
+	 * stores and evictions. Without -config the
+	 * tables of the solver config are compared one by one and combined,
+	 * with -config the maximum of the tables of each config file is
+	 * compared, see SolverConfig.
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		long limit = DEFAULT_LIMIT;
+		int threads = 0;
+		long transpositionBytes = 0;
+		ArrayList<String> files = new ArrayList<String>();
+		ArrayList<Configuration> configurations = new ArrayList<Configuration>();
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-limit") && i + 1 < args.length) {
+				limit = Long.parseLong(args[++i]);
+			} else if (args[i].equals("-threads") && i + 1 < args.length) {
+				threads = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-transpositions") && i + 1 < args.length) {
+				transpositionBytes = Long.parseLong(args[++i]) << 20;
+			} else if (args[i].equals("-config") && i + 1 < args.length) {
+				SolverConfig config = SolverConfig.load(args[++i]);
+				configurations.add(new Configuration(config.heuristic, config.metric, config.frontier,
+						config.bytes()));
+			} else {
+				files.add(args[i]);
+			}
+		}
+		if (files.isEmpty()) {
+			files.addAll(Arrays.asList(defaultFiles()));
+		}
+		if (configurations.isEmpty()) {
+			configurations.addAll(configurations(IDAStar.config));
+		}
+		ForkJoinPool pool = threads > 0 ? new ForkJoinPool(threads) : null;
+		Solver[] solvers = new Solver[configurations.size()];
+		for (int c = 0; c < solvers.length; c++) {
+			Configuration configuration = configurations.get(c);
+			solvers[c] = new Solver(configuration.heuristic, configuration.metric, pool, configuration.frontier);
+			if (transpositionBytes > 0) {
+				solvers[c] = solvers[c].withTranspositionTable(
+						new TranspositionTable(configuration.metric, transpositionBytes));
+			}
+		}
+		long[][] totalTranspositions = new long[solvers.length][4];
+		long[] totalNodes = new long[solvers.length];
+		long[] totalMillis = new long[solvers.length];
+		int[] solved = new int[solvers.length];
+
+		System.out.println("file,heuristic,nodes,millis,length");
+		for (String file : files) {
+			Cube cube = new Cube(file);
+			for (int c = 0; c < solvers.length; c++) {
+				TranspositionTable transpositions = solvers[c].transpositions;
+				if (transpositions != null) {
+					transpositions.clear();
+				}
+				Solution solution = solvers[c].solve(cube.state, limit);
+				long millis = solution.nanos / 1000000;
+				String length = "-";
+				if (solution.found) {
+					solved[c]++;
+					totalNodes[c] += solution.nodes;
+					totalMillis[c] += millis;
+					length = Integer.toString(solution.cost);
+					if (transpositions != null) {
+						totalTranspositions[c][0] += transpositions.hits();
+						totalTranspositions[c][1] += transpositions.misses();
+						totalTranspositions[c][2] += transpositions.stores();
+						totalTranspositions[c][3] += transpositions.evictions();
+					}
+				}
+				System.out.println(file + "," + configurations.get(c) + "," + solution.nodes + ","
+						+ millis + "," + length);
+			}
+		}
+
+		System.out.println();
+		System.out.println("Totals over the cubes each heuristic solved within " + limit + " nodes:");
+		System.out.println("heuristic,megabytes,solved,nodes,millis"
+				+ (transpositionBytes > 0 ? ",hits,misses,stores,evictions" : ""));
+		for (int c = 0; c < solvers.length; c++) {
+			String line = configurations.get(c) + "," + (configurations.get(c).bytes >> 20) + "," + solved[c] + "/"
+					+ files.size() + "," + totalNodes[c] + "," + totalMillis[c];
+			if (transpositionBytes > 0) {
+				for (long count : totalTranspositions[c]) {
+					line += "," + count;
+				}
+			}
+			System.out.println(line);
+		}
+	}
+}
@@ -0,0 +1,56 @@
+/**
+ * Stops a solve from another thread, or once a deadline has passed, see
+ * Solver.solve(CubeState, long, Cancellation, Solver.Listener).
+ *
+ * The search only looks at it every few thousand nodes, when it adds its
+ * node count, so checking it costs nothing per node and a search stops
+ * within a millisecond or so of being cancelled. One token can stop any
+ * number of solves, eg: every cube of a request.
+ */
+public class Cancellation {
+
+	/**
+	 * The time after which the solves give up, in System.nanoTime, or 0 for none.
+	 */
+	private final long deadline;
+
+	private volatile boolean cancelled;
+
+	/**
+	 * Creates a token without a deadline, which only stops the solves when
+	 * it is cancelled.
+	 */
+	public Cancellation() {
+		this(0);
+	}
+
+	private Cancellation(long deadline) {
+		this.deadline = deadline;
+	}
+
+	/**
+	 * Creates a token that stops the solves after some time, or earlier if
+	 * it is cancelled.
+	 * @param timeoutMillis the time from now, in milliseconds
+	 * @return the token
+	 */
+	public static Cancellation after(long timeoutMillis) {
+		// 0 means no deadline, so a deadline that happens to fall on 0 is moved by a nanosecond
+		long deadline = System.nanoTime() + timeoutMillis * 1000000;
+		return new Cancellation(deadline == 0 ? 1 : deadline);
+	}
+
+	/**
+	 * Stops every solve that uses this token, now and later.
+	 */
+	public void cancel() {
+		this.cancelled = true;
+	}
+
+	/**
+	 * @return true if the solves should stop
+	 */
+	public boolean isCancelled() {
+		return this.cancelled || (this.deadline != 0 && System.nanoTime() - this.deadline > 0);
+	}
+}
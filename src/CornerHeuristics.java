@@ -1,56 +1,49 @@
-import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 public class CornerHeuristics {
 	/**
 	 * As per Korf's paper, we should generate all of the permutations
-	 * by starting with a solved cube and then performing a breadth-
-	 * first search.
+	 * and orientations by starting with a solved cube and then performing
+	 * a breadth-first search. The search runs level by level on all cores,
+	 * see PdbGenerator.
+	 * @param metric the metric the distances are measured in
+	 * @return the table of corner heuristics
 	 */
-	public static void generateCornerHeuristics() {
-		// Make a cube and initialize it with a solved cube state
-		Cube cube = new Cube(Cube.GOAL.toCharArray());
-
-		// Make a new Queue to perform BFS
-		Queue<CubeNode> q = new LinkedList<CubeNode>();
-
-		// Put the solved/initial state of the corners on the queue
-		q.add(new CubeNode(cube.state, 0));
-		int[] corners = new int[88179840];
-		Set<Map.Entry<Character, int[]>> faces = Cube.FACES.entrySet();
-
-		// Iterate until we can't anymore
-		while (!q.isEmpty()) {
-			CubeNode current = q.poll();
-			// For each cube state we're given, we need to try all of
-			// possible turns of each other other faces
-			for (Map.Entry<Character, int[]> face : faces) {
-				// Do a clockwise turn
-				char[] newState = Cube.rotate(current.state, face.getKey(), 1);
-				int encodedCorner = Integer.parseInt(Cube.encodeCorners(newState));
-				// Check to see if this combination has been made before
-				if (corners[encodedCorner] == 0) {
-					// This is a new combination, let's add it to the queue
-					q.add(new CubeNode(newState, current.heuristic + 1));
-				}
-			}
+	public static PatternDatabase generateCornerHeuristics(Metric metric) {
+		return generateCornerHeuristics(metric, false);
+	}
 
-			// Handle the current node. We'll encode the corners, and check to
-			// see if we've seen this permutation before.
-			String encodedCorner = Cube.encodeCorners(current.state);
-			int encodedCornerInt = Integer.parseInt(encodedCorner);
-			if (corners[encodedCornerInt] == 0) {
-				corners[encodedCornerInt] = current.heuristic;
-				// Print this out
-				System.out.println(encodedCorner + "," + current.heuristic);
-			}
+	/**
+	 * Generates the corner heuristics, optionally with one entry per symmetry
+	 * class, which makes the table about 40 times smaller at the cost of
+	 * reducing every state before it is looked up.
+	 * @param metric the metric the distances are measured in
+	 * @param reduced true to reduce the table by symmetry
+	 * @return the table of corner heuristics
+	 */
+	public static PatternDatabase generateCornerHeuristics(Metric metric, boolean reduced) {
+		int goal = Cube.rankCorners(Cube.GOAL.toCharArray());
+		int scheme = PatternDatabase.SCHEME_DENSE_FULL;
+		if (reduced) {
+			goal = Symmetry.reduceCorners(goal);
+			scheme = PatternDatabase.SCHEME_SYMMETRY_REDUCED;
 		}
+		return new PdbGenerator(scheme, metric, ForkJoinPool.commonPool())
+				.generate(goal, true);
 	}
 
 	/**
-	 * A main function to kick off the heuristic table generation
+	 * A main function to kick off the heuristic table generation.
+	 * The table is written to the file given as the first argument,
+	 * or corners.pdb if there is none. The second argument is the
+	 * metric, qtm or htm, and defaults to htm. A third argument of sym
+	 * reduces the table by symmetry.
 	 * @param args
 	 */
 	public static void main(String[] args) {
-		CornerHeuristics.generateCornerHeuristics();
+		String fileName = args.length > 0 ? args[0] : "corners.pdb";
+		Metric metric = args.length > 1 ? Metric.parse(args[1]) : Metric.HALF_TURN;
+		boolean reduced = args.length > 2 && args[2].equals("sym");
+		CornerHeuristics.generateCornerHeuristics(metric, reduced).save(fileName);
 	}
 }
@@ -0,0 +1,221 @@
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Builds a set of cubes for benchmarks, grouped by the length of their
+ * optimal solution, so a benchmark can tell how the solver does on cubes
+ * of every difficulty instead of on a handful of hand-picked ones.
+ *
+ * Every cube is solved optimally and written as a cube file, like the
+ * ones in input, to a directory for its length:
+ *   corpus/depth05/cube000 ... corpus/depth14/cube099
+ * Each directory can then be solved with Batch or Benchmark.
+ *
+ * Nearly every cube is 17 or 18 moves from solved, so from UNIFORM_DEPTH
+ * on the cubes are uniformly random states, see RandomStates, and their
+ * numbers follow the real distribution of the cube. A uniform cube that
+ * is any closer is so rare that the shorter lengths are filled with
+ * random scrambles of that many moves instead, whose optimal solution is
+ * usually, but not always, as long as the scramble. A cube is kept in
+ * the directory of the length it really has, if that one still needs
+ * cubes.
+ *
+ * Cubes the solver can't solve within the node limit are skipped. A
+ * length is given up once ten times as many of the cubes generated for it
+ * as it needs missed it, by being skipped or by being of another length.
+ * This ends the deep lengths with small tables, and the lengths random
+ * cubes almost never have, like 20 moves.
+ */
+public class Corpus {
+
+	/**
+	 * The first length whose cubes are uniformly random states.
+	 */
+	public final static int UNIFORM_DEPTH = 17;
+
+	/**
+	 * How many cubes per cube a length needs may miss it before the
+	 * length is given up.
+	 */
+	private final static int MAX_MISSED = 10;
+
+	private final Solver solver;
+	private final File directory;
+	private final int minDepth;
+	private final int count;
+	private final long limit;
+
+	/**
+	 * The cubes written for each length, and the cubes generated for it
+	 * that missed it and that went over the node limit, guarded by this.
+	 */
+	private final int[] written;
+	private final int[] missed;
+	private final int[] skipped;
+
+	Corpus(Solver solver, File directory, int minDepth, int maxDepth, int count, long limit) {
+		this.solver = solver;
+		this.directory = directory;
+		this.minDepth = minDepth;
+		this.count = count;
+		this.limit = limit;
+		this.written = new int[maxDepth - minDepth + 1];
+		this.missed = new int[maxDepth - minDepth + 1];
+		this.skipped = new int[maxDepth - minDepth + 1];
+	}
+
+	/**
+	 * Picks a length that still needs cubes, going round from the one after start.
+	 * @return the length, or -1 if every length is done
+	 */
+	private synchronized int nextDepth(int start) {
+		for (int i = 1; i <= this.written.length; i++) {
+			int bucket = (start - this.minDepth + i) % this.written.length;
+			if (this.written[bucket] < this.count && this.missed[bucket] < this.count * MAX_MISSED) {
+				return this.minDepth + bucket;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Claims a file for a cube that was solved.
+	 * @return the number of the cube in the directory of its length, or -1 if it isn't needed
+	 */
+	private synchronized int claim(int depth) {
+		int bucket = depth - this.minDepth;
+		if (bucket < 0 || bucket >= this.written.length || this.written[bucket] >= this.count) {
+			return -1;
+		}
+		return this.written[bucket]++;
+	}
+
+	/**
+	 * Counts a cube generated for a length that didn't go into it.
+	 * @param skipped true if the cube went over the node limit
+	 */
+	private synchronized void miss(int depth, boolean skipped) {
+		this.missed[depth - this.minDepth]++;
+		if (skipped) {
+			this.skipped[depth - this.minDepth]++;
+		}
+	}
+
+	/**
+	 * Generates and solves cubes on one thread until every length is done.
+	 * @param random the generator of this thread
+	 * @param start the length to start with, so the threads spread over the lengths
+	 */
+	void fill(RandomStates random, int start) throws IOException {
+		int depth = start;
+		while ((depth = nextDepth(depth)) >= 0) {
+			CubeState state = depth >= UNIFORM_DEPTH ? random.next() : random.scramble(depth);
+			Solution solution = this.solver.solve(state, this.limit, 0);
+			if (!solution.found) {
+				miss(depth, true);
+				continue;
+			}
+			int number = claim(solution.cost);
+			if (number >= 0) {
+				write(state, solution.cost, number);
+			}
+			if (solution.cost != depth) {
+				miss(depth, false);
+			}
+		}
+	}
+
+	private void write(CubeState state, int depth, int number) throws IOException {
+		File bucket = new File(this.directory, String.format("depth%02d", depth));
+		if (!bucket.isDirectory() && !bucket.mkdirs()) {
+			throw new IOException("Could not create " + bucket);
+		}
+		Writer out = new FileWriter(new File(bucket, String.format("cube%03d", number)));
+		try {
+			out.write(new Cube(state.toFacelets()).toString());
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Prints how many cubes each length got.
+	 */
+	synchronized void printSummary() {
+		for (int bucket = 0; bucket < this.written.length; bucket++) {
+			System.out.println(String.format("depth%02d: %d cubes, %d missed, %d of them over the limit",
+					this.minDepth + bucket, this.written[bucket], this.missed[bucket], this.skipped[bucket]));
+		}
+	}
+
+	/**
+	 * Builds a corpus.
+	 * Usage: java Corpus [-depths from-to] [-count n] [-threads n] [-limit nodes] [-seed n] [directory]
+	 * By default 100 cubes of each length from 1 to 14 are written to the
+	 * directory corpus, solved with the solver of the solver config and at
+	 * most Benchmark.DEFAULT_LIMIT nodes each. With a seed and one thread
+	 * the same corpus comes out every time.
+	 * @param args
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+		int minDepth = 1;
+		int maxDepth = 14;
+		int count = 100;
+		int threads = Runtime.getRuntime().availableProcessors();
+		long limit = Benchmark.DEFAULT_LIMIT;
+		RandomStates random = new RandomStates();
+		String directory = "corpus";
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-depths") && i + 1 < args.length) {
+				String[] range = args[++i].split("-");
+				minDepth = Integer.parseInt(range[0]);
+				maxDepth = Integer.parseInt(range[range.length - 1]);
+			} else if (args[i].equals("-count") && i + 1 < args.length) {
+				count = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-threads") && i + 1 < args.length) {
+				threads = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-limit") && i + 1 < args.length) {
+				limit = Long.parseLong(args[++i]);
+			} else if (args[i].equals("-seed") && i + 1 < args.length) {
+				random = new RandomStates(Long.parseLong(args[++i]));
+			} else {
+				directory = args[i];
+			}
+		}
+		if (minDepth < 0 || maxDepth < minDepth) {
+			throw new IllegalArgumentException("The depths have to be a range like 5-14");
+		}
+
+		final Corpus corpus = new Corpus(IDAStar.solver.withMode(Solver.Mode.OPTIMAL, 0), new File(directory), minDepth, maxDepth, count, limit);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		List<Future<Void>> workers = new ArrayList<Future<Void>>();
+		for (int i = 0; i < threads; i++) {
+			final RandomStates threadRandom = random.split();
+			final int start = minDepth + i % (maxDepth - minDepth + 1);
+			workers.add(executor.submit(new Callable<Void>() {
+				@Override
+				public Void call() throws IOException {
+					corpus.fill(threadRandom, start);
+					return null;
+				}
+			}));
+		}
+		try {
+			for (Future<Void> worker : workers) {
+				worker.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+		corpus.printSummary();
+	}
+}
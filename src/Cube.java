@@ -1,623 +1,952 @@
-import java.io.BufferedReader;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.IOException;
-import java.util.*;
-
-/**
- * A representation of a physical Rubik's cube.
- */
-public class Cube {
-
-	public char[] state;
-
-	/**
-	 * The serialized representation of our goal state.
-	 */
-	public final static String GOAL = "RRRRRRRRRGGGYYYBBBGGGYYYBBBGGGYYYBBBOOOOOOOOOWWWWWWWWW";
-
-	/**
-	 * A two-dimensional primitive array of ints representing the location of the corners.
-	 * The array is 8 rows by 3 columns.
-	 * Each row represents a physical corner cubie on the Rubik's cube.
-	 * Each column in the row represents a location in the serialized version of the cube.
-	 */
-	public final static int[][] CORNERS = {
-			{0, 9, 51},
-			{2, 17, 53},
-			{6, 11, 12},
-			{8, 14, 15},
-			{29, 30, 36},
-			{32, 33, 38},
-			{27, 42, 45},
-			{35, 44, 47}
-	};
-
-	/**
-	 * A two-dimensional primitive array of ints representing the location of the edges.
-	 * The array is 12 rows by 2 columns.
-	 * Each row represents a physical edge cubie on the Rubik's cube.
-	 * Each column in the row represents a location in the serialize version of the cube.
-	 */
-	public final static int[][] EDGES = {
-			{1, 52},
-			{3, 10},
-			{5, 16},
-			{7, 13},
-			{18, 48},
-			{20, 21},
-			{23, 24},
-			{26, 50},
-			{28, 39},
-			{31, 37},
-			{34, 41},
-			{43, 46}
-	};
-
-	/**
-	 * A HashMap<Character, int[]> where the key is the character of the
-	 * color of the face and the int[] is the indices of the string in
-	 * which the face represents.
-	 */
-	public final static HashMap<Character, int[]> FACES = initFaces();
-
-	/**
-	 * A HashMap<Character, int[]>, where the key is the character of the
-	 * color of the face and the int[] is the indices of the string in
-	 * which the side represents.
-	 */
-	public final static HashMap<Character, int[]> SIDES = initSides();
-
-	/**
-	 * A Map<String, Integer> where the key is the sorted state
-	 * of the corner and the value is the corner in a goal state.
-	 * Used for quicker lookup times while encoding the corners.
-	 */
-	public final static HashMap<String, Integer> GOALCORNERS = initGoalCorners();
-
-	/**
-	 * A HashMap<Character, Integer> where the key is the color of
-	 * the center of each side and the value is the index position of
-	 * that colored center.
-	 */
-	public final static HashMap<Character, Integer> CENTERS = initCenters();
-
-	/**
-	 * A HashMap<String, Integer> where the key is the sorted state
-	 * of the edges and the value is the edge in a goal state.
-	 * Used for quicker lookup times while encoding the edges.
-	 */
-	public final static HashMap<String, Integer> GOALEDGES = initGoalEdges();
-
-	/**
-	 * Initializes the state to an empty String.
-	 * Initializes the corners and edges with the positions in our serialized
-	 * representation of a Rubik's cube.
-	 */
-	public Cube() {
-		this.state = new char[54];
-	}
-
-	/**
-	 * Initializes the Cube to the input of a file.
-	 * @param fileName the filepath of the text file that represents a cube
-	 */
-	public Cube(String fileName) {
-		this.state = this.readTextFile(fileName);
-	}
-
-	/**
-	 * Initializes the Cube to the given state
-	 * @param state the char[] that represents a state
-	 */
-	public Cube(char[] state) {
-		this.state = state;
-	}
-
-	private static HashMap<Character, int[]> initFaces() {
-		HashMap<Character, int[]> faces = new HashMap<Character, int[]>();
-		int[] face = new int[8];
-		face[0] = 0;
-		face[1] = 1;
-		face[2] = 2;
-		face[3] = 5;
-		face[4] = 8;
-		face[5] = 7;
-		face[6] = 6;
-		face[7] = 3;
-		faces.put("R".charAt(0), face);
-		face = new int[8];
-		face[0] = 9;
-		face[1] = 10;
-		face[2] = 11;
-		face[3] = 20;
-		face[4] = 29;
-		face[5] = 28;
-		face[6] = 27;
-		face[7] = 18;
-		faces.put("G".charAt(0), face);
-		face = new int[8];
-		face[0] = 12;
-		face[1] = 13;
-		face[2] = 14;
-		face[3] = 23;
-		face[4] = 32;
-		face[5] = 31;
-		face[6] = 30;
-		face[7] = 21;
-		faces.put("Y".charAt(0), face);
-		face = new int[8];
-		face[0] = 15;
-		face[1] = 16;
-		face[2] = 17;
-		face[3] = 26;
-		face[4] = 35;
-		face[5] = 34;
-		face[6] = 33;
-		face[7] = 24;
-		faces.put("B".charAt(0), face);
-		face = new int[8];
-		face[0] = 36;
-		face[1] = 37;
-		face[2] = 38;
-		face[3] = 41;
-		face[4] = 44;
-		face[5] = 43;
-		face[6] = 42;
-		face[7] = 39;
-		faces.put("O".charAt(0), face);
-		face = new int[8];
-		face[0] = 45;
-		face[1] = 46;
-		face[2] = 47;
-		face[3] = 50;
-		face[4] = 53;
-		face[5] = 52;
-		face[6] = 51;
-		face[7] = 48;
-		faces.put("W".charAt(0), face);
-		return faces;
-	}
-
-	private static HashMap<Character, int[]> initSides() {
-		HashMap<Character, int[]> sides = new HashMap<Character, int[]>();
-		int[] side = new int[12];
-		side[0] = 51;
-		side[1] = 52;
-		side[2] = 53;
-		side[3] = 17;
-		side[4] = 16;
-		side[5] = 15;
-		side[6] = 14;
-		side[7] = 13;
-		side[8] = 12;
-		side[9] = 11;
-		side[10] = 10;
-		side[11] = 9;
-		sides.put("R".charAt(0), side);
-		side = new int[12];
-		side[0] = 0;
-		side[1] = 3;
-		side[2] = 6;
-		side[3] = 12;
-		side[4] = 21;
-		side[5] = 30;
-		side[6] = 36;
-		side[7] = 39;
-		side[8] = 42;
-		side[9] = 45;
-		side[10] = 48;
-		side[11] = 51;
-		sides.put("G".charAt(0), side);
-		side = new int[12];
-		side[0] = 6;
-		side[1] = 7;
-		side[2] = 8;
-		side[3] = 15;
-		side[4] = 24;
-		side[5] = 33;
-		side[6] = 38;
-		side[7] = 37;
-		side[8] = 36;
-		side[9] = 29;
-		side[10] = 20;
-		side[11] = 11;
-		sides.put("Y".charAt(0), side);
-		side = new int[12];
-		side[0] = 8;
-		side[1] = 5;
-		side[2] = 2;
-		side[3] = 53;
-		side[4] = 50;
-		side[5] = 47;
-		side[6] = 44;
-		side[7] = 41;
-		side[8] = 38;
-		side[9] = 32;
-		side[10] = 23;
-		side[11] = 14;
-		sides.put("B".charAt(0), side);
-		side = new int[12];
-		side[0] = 30;
-		side[1] = 31;
-		side[2] = 32;
-		side[3] = 33;
-		side[4] = 34;
-		side[5] = 35;
-		side[6] = 47;
-		side[7] = 46;
-		side[8] = 45;
-		side[9] = 27;
-		side[10] = 28;
-		side[11] = 29;
-		sides.put("O".charAt(0), side);
-		side = new int[12];
-		side[0] = 42;
-		side[1] = 43;
-		side[2] = 44;
-		side[3] = 35;
-		side[4] = 26;
-		side[5] = 17;
-		side[6] = 2;
-		side[7] = 1;
-		side[8] = 0;
-		side[9] = 9;
-		side[10] = 18;
-		side[11] = 27;
-		sides.put("W".charAt(0), side);
-		return sides;
-	}
-
-	private static HashMap<String, Integer> initGoalCorners() {
-		HashMap<String, Integer> result = new HashMap<String, Integer>();
-		result.put("GRW", 0);
-		result.put("BRW", 1);
-		result.put("GRY", 2);
-		result.put("BRY", 3);
-		result.put("GOY", 4);
-		result.put("BOY", 5);
-		result.put("GOW", 6);
-		result.put("BOW", 7);
-		return result;
-	}
-
-	private static HashMap<Character, Integer> initCenters() {
-		HashMap<Character, Integer> centers = new HashMap<Character, Integer>();
-		centers.put("R".charAt(0), 4);
-		centers.put("G".charAt(0), 19);
-		centers.put("Y".charAt(0), 22);
-		centers.put("B".charAt(0), 25);
-		centers.put("O".charAt(0), 40);
-		centers.put("W".charAt(0), 49);
-		return centers;
-	}
-
-	private static HashMap<String, Integer> initGoalEdges() {
-		HashMap<String, Integer> result = new HashMap<String, Integer>();
-		result.put("RW", 0);
-		result.put("GR", 1);
-		result.put("BR", 2);
-		result.put("RY", 3);
-		result.put("GW", 4);
-		result.put("GY", 5);
-		result.put("BY", 6);
-		result.put("BW", 7);
-		result.put("GO", 8);
-		result.put("OY", 9);
-		result.put("BO", 10);
-		result.put("OW", 11);
-		return result;
-	}
-
-	/**
-	 * Method for reading in a file to set up the initial
-	 * state of the Cube.
-	 * @param fileName the path of the file
-	 * @return a string of the file with all newlines and spaces removed.
-	 */
-	public char[] readTextFile(String fileName) {
-		String returnValue = "";
-		FileReader file = null;
-		String line;
-		try {
-			file = new FileReader(fileName);
-			BufferedReader reader = new BufferedReader(file);
-			while ((line = reader.readLine()) != null) {
-				returnValue += line.trim();
-			}
-		} catch (FileNotFoundException e) {
-			throw new RuntimeException("File not found");
-		} catch (IOException e) {
-			throw new RuntimeException("IO error occurred");
-		} finally {
-			if (file != null) {
-				try {
-					file.close();
-				} catch (IOException e) {
-					e.printStackTrace();
-				}
-			}
-		}
-		return returnValue.trim().toCharArray();
-	}
-
-	/**
-	 * Verifies if the current state of the cube is valid.
-	 * @param state the state of the cube
-	 * @return true if state is valid, false if not.
-	 */
-	private static boolean verifyCube(char[] state) {
-		// Check that the length is 54
-		if (state.length != 54) {
-			return false;
-		}
-		// Check that the centers are of the proper color
-		for (Map.Entry<Character, Integer> center : Cube.CENTERS.entrySet()) {
-			if (state[center.getValue()] != center.getKey()) {
-				return false;
-			}
-		}
-		try {
-			// Encode the corners and edges
-			String encodedCorners = Cube.encodeCorners(state);
-			String encodedEdges = Cube.encodeEdges(state);
-			int encodedEdgesSetOne = Integer.parseInt(encodedEdges.substring(0, 6));
-			int encodedEdgesSetTwo = Integer.parseInt(encodedEdges.substring(6, 12));
-			// Attempt to find the encoded state of this cube in the heuristic tables.
-			// These method calls will throw exceptions if they are not found - thus
-			// we can determine that the given cube state is invalid.
-			int h = IDAStar.corners[Integer.parseInt(encodedCorners)];
-			h = IDAStar.edgesSetOne[encodedEdgesSetOne];
-			h = IDAStar.edgesSetTwo[encodedEdgesSetTwo];
-		} catch (Exception e) {
-			// If anything in the try block throws an exception, we know that
-			// the given cube state is invalid, thus we return false
-			return false;
-		}
-		return true;
-	}
-
-	/**
-	 * Does the actual rotation of a cube given the face and amount of clockwise turns.
-	 * @param state the state of the cube
-	 * @param face the character representing the color face to turn clockwise.
-	 * @param turns the number of clockwise turns.
-	 * @return true if rotate was successful, else false if there was an error.
-	 */
-	public static char[] rotate(char[] state, Character face, int turns) {
-		// Turning it by any number of turns mod 4 would be wasting CPU cycles
-		if (turns % 4 == 0) {
-			return state;
-		}
-		int[] thisFace = FACES.get(face);
-		int[] theSides = Cube.SIDES.get(face);
-		// Error checking to verify that the given character is valid
-		// and in the map and that we got both theFace and theSide
-		if (thisFace == null || theSides == null) {
-			return state;
-		}
-
-		// An array representing the chars of the state after rotations
-		char[] newStateArray = state.clone();
-
-		// Rotate the face
-		rotateFace(state, thisFace, turns, newStateArray);
-		// Rotate the sides
-		rotateSide(state, theSides, turns, newStateArray);
-
-		// Set the state to the newly rotated cube
-		state = newStateArray;
-		// Return true because it was successful!
-		return state;
-	}
-
-	/**
-	 * Internal handler to rotate a face of the cube
-	 * @param state the state of the cube
-	 * @param thisFace the int[] representing the face we are rotating.
-	 *                 Should be an element of the Cube.FACES
-	 * @param turns the amount of times we will be rotating the cube
-	 * @param newStateArray the array that will represent the state of
-	 *                      the cube after all rotations
-	 */
-	private static void rotateFace(char[] state, int[] thisFace, int turns, char[] newStateArray) {
-		for (int i = 0; i < thisFace.length; i++) {
-			newStateArray[thisFace[(i + (2 * turns)) % 8]] = state[thisFace[i]];
-		}
-	}
-
-	/**
-	 * Internal handler to rotate a side of the cube
-	 * @param state the state of the cube
-	 * @param theSides the int[] representing the face we are rotating.
-	 *                 Should be an element of the Cube.SIDES
-	 * @param turns the amount of times we will be rotating the cube
-	 * @param newStateArray the array that will represent the state of
-	 *                      the cube after all rotations
-	 */
-	private static void rotateSide(char[] state, int[] theSides, int turns, char[] newStateArray) {
-		for (int i = 0; i < theSides.length; i++) {
-			int moveInt = theSides[(i + (3 * turns)) % theSides.length];
-			newStateArray[moveInt] = state[theSides[i]];
-		}
-	}
-
-	/**
-	 * Internal handler for encoding of corners.
-	 * Does all of the variable-based encoding for either the corners
-	 * or edges. This function shouldn't necessarily be called directly,
-	 * but rather be called from the encodeCorners or encodeEdges functions.
-	 * @param mappedSides a HashMap<Integer, Integer> of the mapped edges/corners
-	 *                    we want to encode.
-	 * @param resultLength the expected result length. This function will
-	 *                     return a string that is resultLength - 1 to save
-	 *                     space since the last number in the string will
-	 *                     always be 0.
-	 * @return a String that represents the variable-based number representation
-	 *         of the given corner or edge.
-	 */
-	private static String encode(HashMap<Integer, Integer> mappedSides, int resultLength) {
-		String[] result = new String[resultLength];
-		for (int i = 0; i < mappedSides.size(); i++) {
-			// Find the shift amount for this current position
-			int diffAmount = 0;
-			int thisCorner = mappedSides.get(i);
-			for (int j = 0; j < i; j++) {
-				if (mappedSides.get(j) < thisCorner) {
-					diffAmount++;
-				}
-			}
-			result[i] = Integer.toString(thisCorner - diffAmount);
-		}
-		// Take the last number off to save space since
-		// it will always be 0.
-		StringBuilder builder = new StringBuilder();
-		for (int i = 0; i < result.length - 1; i++) {
-			builder.append(result[i]);
-		}
-		return builder.toString();
-	}
-
-	/**
-	 * Calls the internal encode() function for the corners.
-	 * @param state the state of the cube
-	 * @return A string that represents the unique state of the corners
-	 * 		   in a variable-based numbering system.
-	 */
-	public static String encodeCorners(char[] state) {
-		return encode(mapCorners(state), 8);
-	}
-
-	/**
-	 * Maps each corner to its current position in the cube.
-	 * @param state the state of the cube
-	 * @return a HashMap<Integer, Integer> where the key is the
-	 * corner and the value is the current position.
-	 * Please reference the CORNERS[][] variable to find out
-	 * which corners are which.
-	 */
-	private static HashMap<Integer, Integer> mapCorners(char[] state) {
-		HashMap<Integer, Integer> result = new HashMap<Integer, Integer>();
-		int[][] corners = Cube.CORNERS;
-		HashMap<String, Integer> goalCorners = initGoalCorners();
-		for(int j = 0; j < corners.length; j++) {
-			String needle = "";
-			for (int s : corners[j]) {
-				needle += state[s];
-			}
-			char[] chars = needle.toCharArray();
-			Arrays.sort(chars);
-			result.put(goalCorners.get(new String(chars)), j);
-		}
-		return result;
-	}
-
-	/**
-	 * Calls the internal encode() function for the edges.
-	 * @param state the state of the cube
-	 * @return A string that represents the unique state of the edges
-	 * 		   in a variable-based numbering system.
-	 */
-	public static String encodeEdges(char[] state) {
-		HashMap<Integer, Integer> mappedEdges = mapEdges(state);
-		StringBuilder builder = new StringBuilder();
-		for (int i = 0; i < mappedEdges.size(); i++) {
-			builder.append(mappedEdges.get(i));
-		}
-		return builder.toString();
-	}
-
-	/**
-	 * Maps each edge to its current position in the cube.
-	 * @param state the state of the cube
-	 * @return a HashMap<Integer, Integer> where the key is the
-	 * corner and the value is the current position.
-	 * Please reference the EDGES[][] variable to find out
-	 * which edges are which.
-	 */
-	private static HashMap<Integer, Integer> mapEdges(char[] state) {
-		HashMap<Integer, Integer> result = new HashMap<Integer, Integer>();
-		for (int i = 0; i < Cube.EDGES.length; i++) {
-			char[] needle = new char[Cube.EDGES[i].length];
-			for (int j = 0; j < Cube.EDGES[i].length; j++) {
-				needle[j] = state[Cube.EDGES[i][j]];
-			}
-			Arrays.sort(needle);
-			result.put(Cube.GOALEDGES.get(new String(needle)), i);
-		}
-		return result;
-	}
-
-	/**
-	 * Random generate a valid cube by starting in the goal state
-	 * then doing 100 random rotations just as outlined the
-	 * "Experimental Results" section of Korf's paper
-	 * Finding Optimal Solutions to Rubik's Cube Using Pattern Databases
-	 * @return a randomly generated cube
-	 */
-	public static Cube generateRandomCube() {
-		// Initialize a cube in a goal state
-		Cube cube = new Cube(Cube.GOAL.toCharArray());
-
-		// As per Korf's paper, they generated random Cubes by doing
-		// 100 random moves from the goal state.
-		for (int i = 0; i < 100; i++) {
-			Random r = new Random();
-			// Pick a random face to rotate
-			ArrayList<Character> keys = new ArrayList<Character>(Cube.FACES.keySet());
-			// Perform the rotation
-			cube.state = Cube.rotate(cube.state, keys.get(r.nextInt(keys.size())), 1);
-		}
-		return cube;
-	}
-
-	/**
-	 * Super nice way to print out the cube in a 2D fashion
-	 * @return a string of the 2D representation of the cube
-	 */
-	@Override
-	public String toString() {
-		String result = "";
-
-		for (int i = 0; i < this.state.length; i++) {
-			if (i < 9 || i > 35) {
-				if (i % 3 == 0) {
-					result += "   " + this.state[i];
-				} else if (i % 3 == 2) {
-					result += this.state[i] + "\n";
-				} else {
-					result += this.state[i];
-				}
-			} else {
-				if (i % 9 == 8) {
-					result += this.state[i] + "\n";
-				} else {
-					result += this.state[i];
-				}
-			}
-		}
-
-		return result;
-	}
-
-	public static void main(String[] args) {
-		Cube cube;
-		if (args.length <= 0) {
-			cube = new Cube("input/valid_input1.txt");
-		} else {
-			cube = new Cube(args[0]);
-		}
-		Boolean validCube = Cube.verifyCube(cube.state);
-		if (validCube) {
-			boolean verbose = false;
-			if (args.length > 1) {
-				verbose = Boolean.parseBoolean(args[1]);
-			}
-			String result = IDAStar.performIDAStar(cube.state, verbose);
-			System.out.println(result);
-		} else {
-			System.out.println("This cube is not valid");
-		}
-
-	}
-}
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A representation of a physical Rubik's cube.
+ */
+public class Cube {
+
+	public char[] state;
+
+	/**
+	 * The serialized representation of our goal state.
+	 */
+	public final static String GOAL = "RRRRRRRRRGGGYYYBBBGGGYYYBBBGGGYYYBBBOOOOOOOOOWWWWWWWWW";
+
+	/**
+	 * A two-dimensional primitive array of ints representing the location of the corners.
+	 * The array is 8 rows by 3 columns.
+	 * Each row represents a physical corner cubie on the Rubik's cube.
+	 * Each column in the row represents a location in the serialized version of the cube.
+	 * The first column is always the location on the red or orange face, the other
+	 * two follow clockwise around the corner. The orientation of a corner is the
+	 * column that holds its red or orange sticker.
+	 */
+	public final static int[][] CORNERS = {
+			{0, 9, 51},
+			{2, 53, 17},
+			{6, 12, 11},
+			{8, 15, 14},
+			{36, 29, 30},
+			{38, 32, 33},
+			{42, 45, 27},
+			{44, 35, 47}
+	};
+
+	/**
+	 * A two-dimensional primitive array of ints representing the location of the edges.
+	 * The array is 12 rows by 2 columns.
+	 * Each row represents a physical edge cubie on the Rubik's cube.
+	 * Each column in the row represents a location in the serialize version of the cube.
+	 * The first column is the location on the red or orange face, or on the yellow or
+	 * white face for the four edges that don't touch red or orange. An edge is flipped
+	 * when its red or orange sticker (yellow or white for those four edges) is not in
+	 * the first column.
+	 */
+	public final static int[][] EDGES = {
+			{1, 52},
+			{3, 10},
+			{5, 16},
+			{7, 13},
+			{48, 18},
+			{21, 20},
+			{23, 24},
+			{50, 26},
+			{39, 28},
+			{37, 31},
+			{41, 34},
+			{43, 46}
+	};
+
+	/**
+	 * The number of edges in each of the two edge sets.
+	 */
+	public final static int EDGE_SET_SIZE = 6;
+
+	/**
+	 * The number of permutations of the corners, 8!.
+	 */
+	public final static int CORNER_PERMUTATIONS = 40320;
+
+	/**
+	 * The number of orientations of the corners, 3^7.
+	 * The orientation of the last corner follows from the other seven.
+	 */
+	public final static int CORNER_ORIENTATIONS = 2187;
+
+	/**
+	 * The number of ways to place one set of edges, 12! / 6!.
+	 */
+	public final static int EDGE_PERMUTATIONS = 665280;
+
+	/**
+	 * The number of orientations of one set of edges, 2^6.
+	 */
+	public final static int EDGE_ORIENTATIONS = 64;
+
+	/**
+	 * The powers of three, used to pick apart the corner orientation rank.
+	 */
+	private final static int[] POWERS_OF_THREE = {1, 3, 9, 27, 81, 243, 729};
+
+	/**
+	 * A HashMap<Character, int[]> where the key is the character of the
+	 * color of the face and the int[] is the indices of the string in
+	 * which the face represents.
+	 */
+	public final static HashMap<Character, int[]> FACES = initFaces();
+
+	/**
+	 * A HashMap<Character, int[]>, where the key is the character of the
+	 * color of the face and the int[] is the indices of the string in
+	 * which the side represents.
+	 */
+	public final static HashMap<Character, int[]> SIDES = initSides();
+
+	/**
+	 * A Map<String, Integer> where the key is the sorted state
+	 * of the corner and the value is the corner in a goal state.
+	 * Used for quicker lookup times while encoding the corners.
+	 */
+	public final static HashMap<String, Integer> GOALCORNERS = initGoalCorners();
+
+	/**
+	 * A HashMap<Character, Integer> where the key is the color of
+	 * the center of each side and the value is the index position of
+	 * that colored center.
+	 */
+	public final static HashMap<Character, Integer> CENTERS = initCenters();
+
+	/**
+	 * A HashMap<String, Integer> where the key is the sorted state
+	 * of the edges and the value is the edge in a goal state.
+	 * Used for quicker lookup times while encoding the edges.
+	 */
+	public final static HashMap<String, Integer> GOALEDGES = initGoalEdges();
+
+	/**
+	 * An int[] indexed by the color bits of the stickers of a corner,
+	 * where the value is the corner in a goal state or -1.
+	 * Used by the ranking functions so they don't have to build Strings.
+	 */
+	private final static int[] CORNER_CUBIES = initCubies(GOALCORNERS);
+
+	/**
+	 * An int[] indexed by the color bits of the stickers of an edge,
+	 * where the value is the edge in a goal state or -1.
+	 */
+	private final static int[] EDGE_CUBIES = initCubies(GOALEDGES);
+
+	/**
+	 * Initializes the state to an empty String.
+	 * Initializes the corners and edges with the positions in our serialized
+	 * representation of a Rubik's cube.
+	 */
+	public Cube() {
+		this.state = new char[54];
+	}
+
+	/**
+	 * Initializes the Cube to the input of a file.
+	 * @param fileName the filepath of the text file that represents a cube
+	 */
+	public Cube(String fileName) {
+		this.state = this.readTextFile(fileName);
+	}
+
+	/**
+	 * Initializes the Cube to the given state
+	 * @param state the char[] that represents a state
+	 */
+	public Cube(char[] state) {
+		this.state = state;
+	}
+
+	private static HashMap<Character, int[]> initFaces() {
+		HashMap<Character, int[]> faces = new HashMap<Character, int[]>();
+		int[] face = new int[8];
+		face[0] = 0;
+		face[1] = 1;
+		face[2] = 2;
+		face[3] = 5;
+		face[4] = 8;
+		face[5] = 7;
+		face[6] = 6;
+		face[7] = 3;
+		faces.put("R".charAt(0), face);
+		face = new int[8];
+		face[0] = 9;
+		face[1] = 10;
+		face[2] = 11;
+		face[3] = 20;
+		face[4] = 29;
+		face[5] = 28;
+		face[6] = 27;
+		face[7] = 18;
+		faces.put("G".charAt(0), face);
+		face = new int[8];
+		face[0] = 12;
+		face[1] = 13;
+		face[2] = 14;
+		face[3] = 23;
+		face[4] = 32;
+		face[5] = 31;
+		face[6] = 30;
+		face[7] = 21;
+		faces.put("Y".charAt(0), face);
+		face = new int[8];
+		face[0] = 15;
+		face[1] = 16;
+		face[2] = 17;
+		face[3] = 26;
+		face[4] = 35;
+		face[5] = 34;
+		face[6] = 33;
+		face[7] = 24;
+		faces.put("B".charAt(0), face);
+		face = new int[8];
+		face[0] = 36;
+		face[1] = 37;
+		face[2] = 38;
+		face[3] = 41;
+		face[4] = 44;
+		face[5] = 43;
+		face[6] = 42;
+		face[7] = 39;
+		faces.put("O".charAt(0), face);
+		face = new int[8];
+		face[0] = 45;
+		face[1] = 46;
+		face[2] = 47;
+		face[3] = 50;
+		face[4] = 53;
+		face[5] = 52;
+		face[6] = 51;
+		face[7] = 48;
+		faces.put("W".charAt(0), face);
+		return faces;
+	}
+
+	private static HashMap<Character, int[]> initSides() {
+		HashMap<Character, int[]> sides = new HashMap<Character, int[]>();
+		int[] side = new int[12];
+		side[0] = 51;
+		side[1] = 52;
+		side[2] = 53;
+		side[3] = 17;
+		side[4] = 16;
+		side[5] = 15;
+		side[6] = 14;
+		side[7] = 13;
+		side[8] = 12;
+		side[9] = 11;
+		side[10] = 10;
+		side[11] = 9;
+		sides.put("R".charAt(0), side);
+		side = new int[12];
+		side[0] = 0;
+		side[1] = 3;
+		side[2] = 6;
+		side[3] = 12;
+		side[4] = 21;
+		side[5] = 30;
+		side[6] = 36;
+		side[7] = 39;
+		side[8] = 42;
+		side[9] = 45;
+		side[10] = 48;
+		side[11] = 51;
+		sides.put("G".charAt(0), side);
+		side = new int[12];
+		side[0] = 6;
+		side[1] = 7;
+		side[2] = 8;
+		side[3] = 15;
+		side[4] = 24;
+		side[5] = 33;
+		side[6] = 38;
+		side[7] = 37;
+		side[8] = 36;
+		side[9] = 29;
+		side[10] = 20;
+		side[11] = 11;
+		sides.put("Y".charAt(0), side);
+		side = new int[12];
+		side[0] = 8;
+		side[1] = 5;
+		side[2] = 2;
+		side[3] = 53;
+		side[4] = 50;
+		side[5] = 47;
+		side[6] = 44;
+		side[7] = 41;
+		side[8] = 38;
+		side[9] = 32;
+		side[10] = 23;
+		side[11] = 14;
+		sides.put("B".charAt(0), side);
+		side = new int[12];
+		side[0] = 30;
+		side[1] = 31;
+		side[2] = 32;
+		side[3] = 33;
+		side[4] = 34;
+		side[5] = 35;
+		side[6] = 47;
+		side[7] = 46;
+		side[8] = 45;
+		side[9] = 27;
+		side[10] = 28;
+		side[11] = 29;
+		sides.put("O".charAt(0), side);
+		side = new int[12];
+		side[0] = 42;
+		side[1] = 43;
+		side[2] = 44;
+		side[3] = 35;
+		side[4] = 26;
+		side[5] = 17;
+		side[6] = 2;
+		side[7] = 1;
+		side[8] = 0;
+		side[9] = 9;
+		side[10] = 18;
+		side[11] = 27;
+		sides.put("W".charAt(0), side);
+		return sides;
+	}
+
+	private static HashMap<String, Integer> initGoalCorners() {
+		HashMap<String, Integer> result = new HashMap<String, Integer>();
+		result.put("GRW", 0);
+		result.put("BRW", 1);
+		result.put("GRY", 2);
+		result.put("BRY", 3);
+		result.put("GOY", 4);
+		result.put("BOY", 5);
+		result.put("GOW", 6);
+		result.put("BOW", 7);
+		return result;
+	}
+
+	private static HashMap<Character, Integer> initCenters() {
+		HashMap<Character, Integer> centers = new HashMap<Character, Integer>();
+		centers.put("R".charAt(0), 4);
+		centers.put("G".charAt(0), 19);
+		centers.put("Y".charAt(0), 22);
+		centers.put("B".charAt(0), 25);
+		centers.put("O".charAt(0), 40);
+		centers.put("W".charAt(0), 49);
+		return centers;
+	}
+
+	private static HashMap<String, Integer> initGoalEdges() {
+		HashMap<String, Integer> result = new HashMap<String, Integer>();
+		result.put("RW", 0);
+		result.put("GR", 1);
+		result.put("BR", 2);
+		result.put("RY", 3);
+		result.put("GW", 4);
+		result.put("GY", 5);
+		result.put("BY", 6);
+		result.put("BW", 7);
+		result.put("GO", 8);
+		result.put("OY", 9);
+		result.put("BO", 10);
+		result.put("OW", 11);
+		return result;
+	}
+
+	private static int[] initCubies(HashMap<String, Integer> goal) {
+		int[] cubies = new int[64];
+		Arrays.fill(cubies, -1);
+		for (Map.Entry<String, Integer> cubie : goal.entrySet()) {
+			int colors = 0;
+			for (char c : cubie.getKey().toCharArray()) {
+				colors |= colorBit(c);
+			}
+			cubies[colors] = cubie.getValue();
+		}
+		return cubies;
+	}
+
+	/**
+	 * Method for reading in a file to set up the initial
+	 * state of the Cube.
+	 * @param fileName the path of the file
+	 * @return a string of the file with all newlines and spaces removed.
+	 */
+	public char[] readTextFile(String fileName) {
+		String returnValue = "";
+		FileReader file = null;
+		String line;
+		try {
+			file = new FileReader(fileName);
+			BufferedReader reader = new BufferedReader(file);
+			while ((line = reader.readLine()) != null) {
+				returnValue += line.trim();
+			}
+		} catch (FileNotFoundException e) {
+			throw new RuntimeException("File not found");
+		} catch (IOException e) {
+			throw new RuntimeException("IO error occurred");
+		} finally {
+			if (file != null) {
+				try {
+					file.close();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+		return returnValue.trim().toCharArray();
+	}
+
+	/**
+	 * Verifies if the current state of the cube is valid.
+	 * @param state the state of the cube
+	 * @return true if state is valid, false if not.
+	 */
+	public static boolean verifyCube(char[] state) {
+		// Besides the stickers, the cubies have to be arranged so that the
+		// cube can be solved, see CubeValidator
+		return CubeValidator.validate(state) == CubeValidator.Reason.VALID;
+	}
+
+	/**
+	 * Does the actual rotation of a cube given the face and amount of clockwise turns.
+	 * @param state the state of the cube
+	 * @param face the character representing the color face to turn clockwise.
+	 * @param turns the number of clockwise turns.
+	 * @return true if rotate was successful, else false if there was an error.
+	 */
+	public static char[] rotate(char[] state, Character face, int turns) {
+		// Turning it by any number of turns mod 4 would be wasting CPU cycles
+		if (turns % 4 == 0) {
+			return state;
+		}
+		// An array representing the chars of the state after rotations
+		char[] newStateArray = state.clone();
+		if (!rotate(state, face, turns, newStateArray)) {
+			return state;
+		}
+		// Return the newly rotated cube
+		return newStateArray;
+	}
+
+	/**
+	 * Does the actual rotation of a cube into an existing array, so that a search
+	 * can reuse one array per depth instead of allocating a new state for each move.
+	 * @param state the state of the cube
+	 * @param face the character representing the color face to turn clockwise.
+	 * @param turns the number of clockwise turns.
+	 * @param newStateArray the array that will hold the state after the rotation.
+	 *                      Must not be the same array as state.
+	 * @return true if rotate was successful, else false if there was an error.
+	 */
+	public static boolean rotate(char[] state, char face, int turns, char[] newStateArray) {
+		int[] thisFace = FACES.get(face);
+		int[] theSides = Cube.SIDES.get(face);
+		// Error checking to verify that the given character is valid
+		// and in the map and that we got both theFace and theSide
+		if (thisFace == null || theSides == null) {
+			return false;
+		}
+		System.arraycopy(state, 0, newStateArray, 0, state.length);
+		// Rotate the face
+		rotateFace(state, thisFace, turns, newStateArray);
+		// Rotate the sides
+		rotateSide(state, theSides, turns, newStateArray);
+		return true;
+	}
+
+	/**
+	 * Internal handler to rotate a face of the cube
+	 * @param state the state of the cube
+	 * @param thisFace the int[] representing the face we are rotating.
+	 *                 Should be an element of the Cube.FACES
+	 * @param turns the amount of times we will be rotating the cube
+	 * @param newStateArray the array that will represent the state of
+	 *                      the cube after all rotations
+	 */
+	private static void rotateFace(char[] state, int[] thisFace, int turns, char[] newStateArray) {
+		for (int i = 0; i < thisFace.length; i++) {
+			newStateArray[thisFace[(i + (2 * turns)) % 8]] = state[thisFace[i]];
+		}
+	}
+
+	/**
+	 * Internal handler to rotate a side of the cube
+	 * @param state the state of the cube
+	 * @param theSides the int[] representing the face we are rotating.
+	 *                 Should be an element of the Cube.SIDES
+	 * @param turns the amount of times we will be rotating the cube
+	 * @param newStateArray the array that will represent the state of
+	 *                      the cube after all rotations
+	 */
+	private static void rotateSide(char[] state, int[] theSides, int turns, char[] newStateArray) {
+		for (int i = 0; i < theSides.length; i++) {
+			int moveInt = theSides[(i + (3 * turns)) % theSides.length];
+			newStateArray[moveInt] = state[theSides[i]];
+		}
+	}
+
+	/**
+	 * Maps a sticker color to a single bit, so that the colors of a cubie
+	 * can be combined into a number that doesn't depend on their order.
+	 * @param color the color of the sticker
+	 * @return the bit for the color, or 0 if it isn't a color
+	 */
+	private static int colorBit(char color) {
+		switch (color) {
+			case 'R': return 1;
+			case 'G': return 2;
+			case 'Y': return 4;
+			case 'B': return 8;
+			case 'O': return 16;
+			case 'W': return 32;
+			default: return 0;
+		}
+	}
+
+	/**
+	 * Ranks how strongly a color decides the orientation of an edge.
+	 * @param color the color of the sticker
+	 * @return 2 for red and orange, 1 for yellow and white, otherwise 0
+	 */
+	private static int edgePriority(char color) {
+		if (color == 'R' || color == 'O') {
+			return 2;
+		}
+		return color == 'Y' || color == 'W' ? 1 : 0;
+	}
+
+	/**
+	 * Finds the corner cubie at a position.
+	 * @param state the state of the cube
+	 * @param position the corner position, a row of CORNERS
+	 * @return the corner in a goal state, or -1 if the stickers aren't a corner
+	 */
+	public static int cornerAt(char[] state, int position) {
+		int[] corner = CORNERS[position];
+		return CORNER_CUBIES[colorBit(state[corner[0]]) | colorBit(state[corner[1]]) | colorBit(state[corner[2]])];
+	}
+
+	/**
+	 * Finds the orientation of the corner cubie at a position.
+	 * @param state the state of the cube
+	 * @param position the corner position, a row of CORNERS
+	 * @return the column of CORNERS that holds the red or orange sticker
+	 */
+	public static int cornerOrientationAt(char[] state, int position) {
+		int[] corner = CORNERS[position];
+		for (int i = 1; i < corner.length; i++) {
+			if (state[corner[i]] == 'R' || state[corner[i]] == 'O') {
+				return i;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Finds the edge cubie at a position.
+	 * @param state the state of the cube
+	 * @param position the edge position, a row of EDGES
+	 * @return the edge in a goal state, or -1 if the stickers aren't an edge
+	 */
+	public static int edgeAt(char[] state, int position) {
+		int[] edge = EDGES[position];
+		return EDGE_CUBIES[colorBit(state[edge[0]]) | colorBit(state[edge[1]])];
+	}
+
+	/**
+	 * Finds the orientation of the edge cubie at a position.
+	 * @param state the state of the cube
+	 * @param position the edge position, a row of EDGES
+	 * @return 0 if the edge is in its goal orientation, 1 if it is flipped
+	 */
+	public static int edgeOrientationAt(char[] state, int position) {
+		int[] edge = EDGES[position];
+		return edgePriority(state[edge[0]]) >= edgePriority(state[edge[1]]) ? 0 : 1;
+	}
+
+	/**
+	 * Ranks the permutation of the corners into a dense index with a Lehmer code.
+	 * Doesn't allocate, so it is safe to call for every node of a search.
+	 * @param state the state of the cube
+	 * @return a number between 0 and CORNER_PERMUTATIONS - 1, where 0 is the
+	 *         goal state, or -1 if the corners aren't a valid permutation
+	 */
+	public static int rankCornerPermutation(char[] state) {
+		int rank = 0;
+		int used = 0;
+		for (int position = 0; position < CORNERS.length; position++) {
+			int corner = cornerAt(state, position);
+			if (corner < 0 || (used & (1 << corner)) != 0) {
+				return -1;
+			}
+			// The digit is the number of unused corners smaller than this corner
+			rank = rank * (CORNERS.length - position) + corner - Integer.bitCount(used & ((1 << corner) - 1));
+			used |= 1 << corner;
+		}
+		return rank;
+	}
+
+	/**
+	 * Ranks the orientation of the corners as a base 3 number.
+	 * @param state the state of the cube
+	 * @return a number between 0 and CORNER_ORIENTATIONS - 1, where 0 is the goal state
+	 */
+	public static int rankCornerOrientation(char[] state) {
+		int rank = 0;
+		// The orientation of the last corner is determined by the others
+		for (int position = 0; position < CORNERS.length - 1; position++) {
+			rank = rank * 3 + cornerOrientationAt(state, position);
+		}
+		return rank;
+	}
+
+	/**
+	 * Ranks the permutation and orientation of the corners into one dense index.
+	 * @param state the state of the cube
+	 * @return a number between 0 and CORNER_PERMUTATIONS * CORNER_ORIENTATIONS - 1,
+	 *         where 0 is the goal state, or -1 if the corners aren't valid
+	 */
+	public static int rankCorners(char[] state) {
+		int permutation = rankCornerPermutation(state);
+		if (permutation < 0) {
+			return -1;
+		}
+		return permutation * CORNER_ORIENTATIONS + rankCornerOrientation(state);
+	}
+
+	/**
+	 * Writes the corners of a ranked state into a cube.
+	 * This is the inverse of rankCorners.
+	 * @param rank the rank of the corners
+	 * @param state the state of the cube, only the corner stickers are written
+	 */
+	public static void unrankCorners(int rank, char[] state) {
+		int permutation = rank / CORNER_ORIENTATIONS;
+		int orientation = rank % CORNER_ORIENTATIONS;
+		// Peel off the Lehmer digits, last position first
+		long digits = 0;
+		for (int position = CORNERS.length - 1; position >= 0; position--) {
+			int base = CORNERS.length - position;
+			digits |= (long) (permutation % base) << (4 * position);
+			permutation /= base;
+		}
+		int used = 0;
+		int twist = 0;
+		for (int position = 0; position < CORNERS.length; position++) {
+			int corner = nthUnused(used, (int) (digits >>> (4 * position)) & 15);
+			used |= 1 << corner;
+			int o;
+			if (position < CORNERS.length - 1) {
+				o = (orientation / POWERS_OF_THREE[CORNERS.length - 2 - position]) % 3;
+				twist += o;
+			} else {
+				o = (3 - twist % 3) % 3;
+			}
+			// Twisting a corner keeps the clockwise order of its stickers
+			for (int i = 0; i < 3; i++) {
+				state[CORNERS[position][(o + i) % 3]] = GOAL.charAt(CORNERS[corner][i]);
+			}
+		}
+	}
+
+	/**
+	 * Ranks the positions of one set of edges into a dense index.
+	 * Doesn't allocate, so it is safe to call for every node of a search.
+	 * @param state the state of the cube
+	 * @param set 0 for the first six edges of EDGES, 1 for the last six
+	 * @return a number between 0 and EDGE_PERMUTATIONS - 1,
+	 *         or -1 if the edges aren't valid
+	 */
+	public static int rankEdgePermutation(char[] state, int set) {
+		long positions = findEdges(state, set);
+		if (positions < 0) {
+			return -1;
+		}
+		return rankEdgePositions(positions);
+	}
+
+	/**
+	 * Ranks the orientation of one set of edges as a binary number.
+	 * @param state the state of the cube
+	 * @param set 0 for the first six edges of EDGES, 1 for the last six
+	 * @return a number between 0 and EDGE_ORIENTATIONS - 1,
+	 *         or -1 if the edges aren't valid
+	 */
+	public static int rankEdgeOrientation(char[] state, int set) {
+		long positions = findEdges(state, set);
+		if (positions < 0) {
+			return -1;
+		}
+		return rankEdgeFlips(state, positions);
+	}
+
+	/**
+	 * Ranks the positions and orientation of one set of edges into one dense index.
+	 * @param state the state of the cube
+	 * @param set 0 for the first six edges of EDGES, 1 for the last six
+	 * @return a number between 0 and EDGE_PERMUTATIONS * EDGE_ORIENTATIONS - 1,
+	 *         or -1 if the edges aren't valid
+	 */
+	public static int rankEdges(char[] state, int set) {
+		long positions = findEdges(state, set);
+		if (positions < 0) {
+			return -1;
+		}
+		return rankEdgePositions(positions) * EDGE_ORIENTATIONS + rankEdgeFlips(state, positions);
+	}
+
+	/**
+	 * Writes one set of edges of a ranked state into a cube.
+	 * This is the inverse of rankEdges. The stickers of the edges
+	 * that aren't in the set are cleared.
+	 * @param rank the rank of the edges
+	 * @param set 0 for the first six edges of EDGES, 1 for the last six
+	 * @param state the state of the cube, only the edge stickers are written
+	 */
+	public static void unrankEdges(int rank, int set, char[] state) {
+		int permutation = rank / EDGE_ORIENTATIONS;
+		int orientation = rank % EDGE_ORIENTATIONS;
+		for (int[] edge : EDGES) {
+			state[edge[0]] = '.';
+			state[edge[1]] = '.';
+		}
+		long digits = 0;
+		for (int i = EDGE_SET_SIZE - 1; i >= 0; i--) {
+			int base = EDGES.length - i;
+			digits |= (long) (permutation % base) << (4 * i);
+			permutation /= base;
+		}
+		int used = 0;
+		for (int i = 0; i < EDGE_SET_SIZE; i++) {
+			int position = nthUnused(used, (int) (digits >>> (4 * i)) & 15);
+			used |= 1 << position;
+			int edge = set * EDGE_SET_SIZE + i;
+			int flip = (orientation >>> (EDGE_SET_SIZE - 1 - i)) & 1;
+			state[EDGES[position][flip]] = GOAL.charAt(EDGES[edge][0]);
+			state[EDGES[position][1 - flip]] = GOAL.charAt(EDGES[edge][1]);
+		}
+	}
+
+	/**
+	 * Finds the positions of one set of edges.
+	 * @param state the state of the cube
+	 * @param set 0 for the first six edges of EDGES, 1 for the last six
+	 * @return the positions packed 4 bits per edge, the first edge of
+	 *         the set in the lowest bits, or -1 if the edges aren't valid
+	 */
+	private static long findEdges(char[] state, int set) {
+		long positions = 0;
+		int found = 0;
+		int first = set * EDGE_SET_SIZE;
+		for (int position = 0; position < EDGES.length; position++) {
+			int edge = edgeAt(state, position);
+			if (edge >= first && edge < first + EDGE_SET_SIZE) {
+				if ((found & (1 << edge)) != 0) {
+					return -1;
+				}
+				found |= 1 << edge;
+				positions |= (long) position << (4 * (edge - first));
+			}
+		}
+		if (Integer.bitCount(found) != EDGE_SET_SIZE) {
+			return -1;
+		}
+		return positions;
+	}
+
+	/**
+	 * Ranks the positions found by findEdges with a Lehmer code.
+	 * @param positions the packed positions of one set of edges
+	 * @return a number between 0 and EDGE_PERMUTATIONS - 1
+	 */
+	private static int rankEdgePositions(long positions) {
+		int rank = 0;
+		int used = 0;
+		for (int i = 0; i < EDGE_SET_SIZE; i++) {
+			int position = (int) (positions >>> (4 * i)) & 15;
+			rank = rank * (EDGES.length - i) + position - Integer.bitCount(used & ((1 << position) - 1));
+			used |= 1 << position;
+		}
+		return rank;
+	}
+
+	/**
+	 * Ranks the orientations of the edges found by findEdges.
+	 * @param state the state of the cube
+	 * @param positions the packed positions of one set of edges
+	 * @return a number between 0 and EDGE_ORIENTATIONS - 1
+	 */
+	private static int rankEdgeFlips(char[] state, long positions) {
+		int rank = 0;
+		for (int i = 0; i < EDGE_SET_SIZE; i++) {
+			rank = (rank << 1) | edgeOrientationAt(state, (int) (positions >>> (4 * i)) & 15);
+		}
+		return rank;
+	}
+
+	/**
+	 * Ranks a sequence of distinct numbers below n with a Lehmer code, the same
+	 * way the corner and edge ranks are built. For the corners the sequence is
+	 * the corner at each position, for a set of edges it is the position of
+	 * each edge of the set.
+	 * @param items the distinct numbers
+	 * @param n the numbers are below n
+	 * @return a number between 0 and n! / (n - items.length)! - 1
+	 */
+	public static int rankPermutation(int[] items, int n) {
+		int rank = 0;
+		int used = 0;
+		for (int i = 0; i < items.length; i++) {
+			rank = rank * (n - i) + items[i] - Integer.bitCount(used & ((1 << items[i]) - 1));
+			used |= 1 << items[i];
+		}
+		return rank;
+	}
+
+	/**
+	 * The inverse of rankPermutation.
+	 * @param rank the rank
+	 * @param items the array that will hold the numbers, its length is the
+	 *              length of the sequence
+	 * @param n the numbers are below n
+	 */
+	public static void unrankPermutation(int rank, int[] items, int n) {
+		for (int i = items.length - 1; i >= 0; i--) {
+			items[i] = rank % (n - i);
+			rank /= n - i;
+		}
+		int used = 0;
+		for (int i = 0; i < items.length; i++) {
+			items[i] = nthUnused(used, items[i]);
+			used |= 1 << items[i];
+		}
+	}
+
+	/**
+	 * Ranks the twists of the corners the same way as rankCornerOrientation.
+	 * @param twists the twist of the corner at each position, 0 to 2
+	 * @return a number between 0 and CORNER_ORIENTATIONS - 1
+	 */
+	public static int rankCornerOrientation(int[] twists) {
+		int rank = 0;
+		for (int position = 0; position < CORNERS.length - 1; position++) {
+			rank = rank * 3 + twists[position];
+		}
+		return rank;
+	}
+
+	/**
+	 * The inverse of rankCornerOrientation.
+	 * @param rank the rank
+	 * @param twists the array that will hold the twist of the corner at each position
+	 */
+	public static void unrankCornerOrientation(int rank, int[] twists) {
+		int twist = 0;
+		for (int position = CORNERS.length - 2; position >= 0; position--) {
+			twists[position] = rank % 3;
+			twist += rank % 3;
+			rank /= 3;
+		}
+		// The twists of all corners always add up to a multiple of 3
+		twists[CORNERS.length - 1] = (3 - twist % 3) % 3;
+	}
+
+	/**
+	 * Finds the n-th number that hasn't been used yet.
+	 * @param used a bit set of the numbers that have been used
+	 * @param n how many unused numbers to skip
+	 * @return the n-th unused number
+	 */
+	private static int nthUnused(int used, int n) {
+		int i = 0;
+		while (true) {
+			if ((used & (1 << i)) == 0) {
+				if (n == 0) {
+					return i;
+				}
+				n--;
+			}
+			i++;
+		}
+	}
+
+	/**
+	 * Generates a random cube that can be solved, every such cube as likely
+	 * as any other. Korf's paper made its random cubes with 100 random
+	 * moves from the goal state, which is slower and doesn't quite reach
+	 * every state equally often. Use RandomStates to generate many cubes.
+	 * @return a randomly generated cube
+	 */
+	public static Cube generateRandomCube() {
+		return new Cube(new RandomStates().next().toFacelets());
+	}
+
+	/**
+	 * Super nice way to print out the cube in a 2D fashion
+	 * @return a string of the 2D representation of the cube
+	 */
+	@Override
+	public String toString() {
+		String result = "";
+
+		for (int i = 0; i < this.state.length; i++) {
+			if (i < 9 || i > 35) {
+				if (i % 3 == 0) {
+					result += "   " + this.state[i];
+				} else if (i % 3 == 2) {
+					result += this.state[i] + "\n";
+				} else {
+					result += this.state[i];
+				}
+			} else {
+				if (i % 9 == 8) {
+					result += this.state[i] + "\n";
+				} else {
+					result += this.state[i];
+				}
+			}
+		}
+
+		return result;
+	}
+
+	public static void main(String[] args) {
+		Cube cube;
+		if (args.length <= 0) {
+			cube = new Cube("input/valid_input1.txt");
+		} else {
+			cube = new Cube(args[0]);
+		}
+		Boolean validCube = Cube.verifyCube(cube.state);
+		if (validCube) {
+			boolean verbose = false;
+			if (args.length > 1) {
+				verbose = Boolean.parseBoolean(args[1]);
+			}
+			String result;
+			if (args.length > 2) {
+				// The third argument is the number of threads to search with
+				ForkJoinPool pool = new ForkJoinPool(Integer.parseInt(args[2]));
+				Solver solver = IDAStar.config.solver(pool);
+				result = IDAStar.performIDAStar(solver, cube.state, 0, verbose);
+				pool.shutdown();
+			} else {
+				result = IDAStar.performIDAStar(cube.state, verbose);
+			}
+			System.out.println(result);
+		} else {
+			System.out.println("This cube is not valid");
+		}
+
+	}
+}
@@ -1,5 +1,4 @@
 import java.util.ArrayList;
-import java.util.Map;
 
 /**
  * While doing the BFS to enumerate all valid permutations in a cube,
@@ -68,37 +67,22 @@ public class CubeNode implements Comparable<CubeNode> {
 	}
 
 	/**
-	 * Generates all successors of the given node.
+	 * Generates all successors of the given node. This allocates a new
+	 * state and path for every successor, a search should use Successors.
 	 * @param node the node to find successors for
 	 * @return an ArrayList<CubeNode> of all successors for
 	 * the param node
 	 */
 	public static ArrayList<CubeNode> getSuccessors(CubeNode node) {
 		ArrayList<CubeNode> successors = new ArrayList<CubeNode>();
-		for (Map.Entry<Character, int[]> face : Cube.FACES.entrySet()) {
-			// Make a clockwise turn
-			char[] newState = Cube.rotate(node.state, face.getKey(), 1);
-			// Encode the corner
-			int encodedCorner = Integer.parseInt(Cube.encodeCorners(newState));
-			// Encode the edges
-			String encodedEdges = Cube.encodeEdges(newState);
-			int encodedEdgeSetOne = Integer.parseInt(encodedEdges.substring(0, 6));
-			int encodedEdgeSetTwo = Integer.parseInt(encodedEdges.substring(6, 12));
-			// Find all of the heuristic values for the given corner,
-			// and two edge sets
-			int[] possibleHeuristics = new int[3];
-			possibleHeuristics[0] = IDAStar.corners[encodedCorner];
-			possibleHeuristics[1] = IDAStar.edgesSetOne[encodedEdgeSetOne];
-			possibleHeuristics[2] = IDAStar.edgesSetTwo[encodedEdgeSetTwo];
-			// Find the maximum of the 3 heuristics as per the details of Korf's paper
-			int max = possibleHeuristics[0];
-			for (int i = 1; i < possibleHeuristics.length; i++) {
-				if (possibleHeuristics[i] > max) {
-					max = possibleHeuristics[i];
-				}
-			}
+		for (int move = 0; move < Move.COUNT; move++) {
+			// Make the move
+			char[] newState = new char[node.state.length];
+			Move.apply(node.state, move, newState);
+			// Estimate with the maximum of the corner and edge tables
+			int heuristic = IDAStar.heuristic.estimate(newState);
 			// Add the rotated state and it's heuristic value to the successors
-			successors.add(new CubeNode(newState, IDAStar.corners[encodedCorner], node.path + face.getKey() + "1")) ;
+			successors.add(new CubeNode(newState, heuristic, node.path + Move.toString(move)));
 		}
 		return successors;
 	}
@@ -0,0 +1,257 @@
+/**
+ * The state of a cube packed into two longs, 16 bytes instead of the 54
+ * chars of Cube.state, so that searches, tables and queues can hold many
+ * of them and compare or hash them without looking at any stickers.
+ *
+ * Each position of a cubie takes five bits, position p in bits 5p to 5p+4,
+ * numbered as the rows of Cube.CORNERS and Cube.EDGES:
+ *   corners  bits 0-2 the corner at the position, bits 3-4 its orientation
+ *   edges    bits 0-3 the edge at the position, bit 4 whether it is flipped
+ * The orientations are the ones of Cube.cornerOrientationAt and
+ * Cube.edgeOrientationAt. The centers are not stored, they never move.
+ *
+ * Every cubie appears exactly once, but the state may still be one that
+ * can't be reached by turning the faces, eg: a single twisted corner.
+ */
+public final class CubeState {
+
+	private final static int BITS = 5;
+	private final static long CUBIE = 7;
+	private final static long EDGE = 15;
+
+	/**
+	 * The solved cube.
+	 */
+	public final static CubeState GOAL = new CubeState(goal(8), goal(12));
+
+	/**
+	 * The positions of the centers in the serialized cube.
+	 */
+	private final static int[] CENTERS = {4, 19, 22, 25, 40, 49};
+
+	/**
+	 * The corners, five bits per position.
+	 */
+	public final long corners;
+
+	/**
+	 * The edges, five bits per position.
+	 */
+	public final long edges;
+
+	/**
+	 * Wraps two packed longs. They are not checked, so they have to come
+	 * from the fields of another state.
+	 * @param corners the corners, five bits per position
+	 * @param edges the edges, five bits per position
+	 */
+	public CubeState(long corners, long edges) {
+		this.corners = corners;
+		this.edges = edges;
+	}
+
+	private static long goal(int cubies) {
+		long packed = 0;
+		for (int position = 0; position < cubies; position++) {
+			packed |= (long) position << (BITS * position);
+		}
+		return packed;
+	}
+
+	/**
+	 * Packs the state of a cube.
+	 * @param state the state of the cube in the order of Cube.GOAL
+	 * @return the packed state, or null if the centers aren't in place or
+	 *         the stickers don't make up every corner and edge exactly once
+	 */
+	public static CubeState of(char[] state) {
+		if (state.length != Cube.GOAL.length()) {
+			return null;
+		}
+		for (int center : CENTERS) {
+			if (state[center] != Cube.GOAL.charAt(center)) {
+				return null;
+			}
+		}
+		long corners = 0;
+		int used = 0;
+		for (int position = 0; position < Cube.CORNERS.length; position++) {
+			int corner = Cube.cornerAt(state, position);
+			if (corner < 0 || (used & (1 << corner)) != 0) {
+				return null;
+			}
+			used |= 1 << corner;
+			corners |= (long) (corner | Cube.cornerOrientationAt(state, position) << 3) << (BITS * position);
+		}
+		long edges = 0;
+		used = 0;
+		for (int position = 0; position < Cube.EDGES.length; position++) {
+			int edge = Cube.edgeAt(state, position);
+			if (edge < 0 || (used & (1 << edge)) != 0) {
+				return null;
+			}
+			used |= 1 << edge;
+			edges |= (long) (edge | Cube.edgeOrientationAt(state, position) << 4) << (BITS * position);
+		}
+		return new CubeState(corners, edges);
+	}
+
+	/**
+	 * Packs the state of a cube written as a string.
+	 * @param state the 54 stickers in the order of Cube.GOAL
+	 * @return the packed state, or null if it isn't a cube
+	 */
+	public static CubeState of(String state) {
+		return of(state.toCharArray());
+	}
+
+	/**
+	 * @return true if this is the solved cube
+	 */
+	public boolean isSolved() {
+		return this.corners == GOAL.corners && this.edges == GOAL.edges;
+	}
+
+	/**
+	 * Applies a move.
+	 * @param move the move, as numbered by Move
+	 * @return the state after the move
+	 */
+	public CubeState move(int move) {
+		int[] cornerPositions = MoveTables.CORNER_POSITIONS[move];
+		int[] twists = MoveTables.CORNER_TWISTS[move];
+		long corners = 0;
+		for (int position = 0; position < Cube.CORNERS.length; position++) {
+			int twist = (cornerOrientationAt(position) + twists[position]) % 3;
+			corners |= (long) (cornerAt(position) | twist << 3) << (BITS * cornerPositions[position]);
+		}
+		int[] edgePositions = MoveTables.EDGE_POSITIONS[move];
+		int[] flips = MoveTables.EDGE_FLIPS[move];
+		long edges = 0;
+		for (int position = 0; position < Cube.EDGES.length; position++) {
+			int flip = edgeOrientationAt(position) ^ flips[position];
+			edges |= (long) (edgeAt(position) | flip << 4) << (BITS * edgePositions[position]);
+		}
+		return new CubeState(corners, edges);
+	}
+
+	/**
+	 * @return the corner at a position, a row of Cube.CORNERS
+	 */
+	public int cornerAt(int position) {
+		return (int) (this.corners >>> (BITS * position) & CUBIE);
+	}
+
+	/**
+	 * @return the orientation of the corner at a position
+	 */
+	public int cornerOrientationAt(int position) {
+		return (int) (this.corners >>> (BITS * position + 3) & 3);
+	}
+
+	/**
+	 * @return the edge at a position, a row of Cube.EDGES
+	 */
+	public int edgeAt(int position) {
+		return (int) (this.edges >>> (BITS * position) & EDGE);
+	}
+
+	/**
+	 * @return 1 if the edge at a position is flipped, otherwise 0
+	 */
+	public int edgeOrientationAt(int position) {
+		return (int) (this.edges >>> (BITS * position + 4) & 1);
+	}
+
+	/**
+	 * Ranks the corners the same way as Cube.rankCorners, without the stickers.
+	 * @return the rank of the corners
+	 */
+	public int rankCorners() {
+		int permutation = 0;
+		int orientation = 0;
+		int used = 0;
+		for (int position = 0; position < Cube.CORNERS.length; position++) {
+			int corner = cornerAt(position);
+			permutation = permutation * (Cube.CORNERS.length - position) + corner
+					- Integer.bitCount(used & ((1 << corner) - 1));
+			used |= 1 << corner;
+			if (position < Cube.CORNERS.length - 1) {
+				orientation = orientation * 3 + cornerOrientationAt(position);
+			}
+		}
+		return permutation * Cube.CORNER_ORIENTATIONS + orientation;
+	}
+
+	/**
+	 * Ranks one set of edges the same way as Cube.rankEdges, without the stickers.
+	 * @param set 0 for the first six edges of Cube.EDGES, 1 for the last six
+	 * @return the rank of the edges
+	 */
+	public int rankEdges(int set) {
+		long positions = 0;
+		for (int position = 0; position < Cube.EDGES.length; position++) {
+			int i = edgeAt(position) - set * Cube.EDGE_SET_SIZE;
+			if (i >= 0 && i < Cube.EDGE_SET_SIZE) {
+				positions |= (long) position << (4 * i);
+			}
+		}
+		int permutation = 0;
+		int flips = 0;
+		int used = 0;
+		for (int i = 0; i < Cube.EDGE_SET_SIZE; i++) {
+			int position = (int) (positions >>> (4 * i)) & 15;
+			permutation = permutation * (Cube.EDGES.length - i) + position
+					- Integer.bitCount(used & ((1 << position) - 1));
+			used |= 1 << position;
+			flips = (flips << 1) | edgeOrientationAt(position);
+		}
+		return permutation * Cube.EDGE_ORIENTATIONS + flips;
+	}
+
+	/**
+	 * Unpacks the stickers, the inverse of of().
+	 * @return the state of the cube in the order of Cube.GOAL
+	 */
+	public char[] toFacelets() {
+		char[] state = Cube.GOAL.toCharArray();
+		for (int position = 0; position < Cube.CORNERS.length; position++) {
+			int[] corner = Cube.CORNERS[cornerAt(position)];
+			int orientation = cornerOrientationAt(position);
+			// Twisting a corner keeps the clockwise order of its stickers
+			for (int i = 0; i < 3; i++) {
+				state[Cube.CORNERS[position][(orientation + i) % 3]] = Cube.GOAL.charAt(corner[i]);
+			}
+		}
+		for (int position = 0; position < Cube.EDGES.length; position++) {
+			int[] edge = Cube.EDGES[edgeAt(position)];
+			int flip = edgeOrientationAt(position);
+			state[Cube.EDGES[position][flip]] = Cube.GOAL.charAt(edge[0]);
+			state[Cube.EDGES[position][1 - flip]] = Cube.GOAL.charAt(edge[1]);
+		}
+		return state;
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (!(other instanceof CubeState)) {
+			return false;
+		}
+		CubeState state = (CubeState) other;
+		return state.corners == this.corners && state.edges == this.edges;
+	}
+
+	@Override
+	public int hashCode() {
+		long h = (this.corners ^ this.edges * 0x9E3779B97F4A7C15L) * 0xC2B2AE3D27D4EB4FL;
+		return (int) (h ^ (h >>> 32));
+	}
+
+	/**
+	 * @return the 54 stickers in the order of Cube.GOAL
+	 */
+	@Override
+	public String toString() {
+		return new String(toFacelets());
+	}
+}
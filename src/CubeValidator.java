@@ -0,0 +1,221 @@
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Tells whether a state is a cube that can be solved, and if not why,
+ * without any tables. A validation takes about half a microsecond and
+ * doesn't allocate, so it can check every line of a large file before
+ * anything is solved.
+ *
+ * The checks run in the order of Reason and the first one that fails is
+ * the reason: every sticker has to be one of the six colours and every
+ * colour has to appear nine times, the centers have to be in place, the
+ * stickers of every corner and edge have to make up a real cubie, each
+ * one once, and the cubies have to be arranged the way turning the faces
+ * can arrange them. That last part is three invariants of the moves: the
+ * permutations of the corners and of the edges have the same parity, the
+ * twists of the corners add up to a multiple of three and the flips of
+ * the edges to an even number. Cubes that fail them were put together
+ * wrong, and a search for their solution would never end.
+ */
+public class CubeValidator {
+
+	/**
+	 * Why a state is not a cube that can be solved, or VALID.
+	 */
+	public enum Reason {
+		VALID("a cube that can be solved"),
+		LENGTH("not 54 stickers"),
+		COLOR("a sticker is not one of RGYBOW"),
+		STICKER_COUNT("a colour does not appear 9 times"),
+		CENTERS("the centers are not in place"),
+		CORNERS("the stickers of a corner are not a corner, or a corner appears twice"),
+		EDGES("the stickers of an edge are not an edge, or an edge appears twice"),
+		PARITY("two cubies are swapped"),
+		TWIST("a corner is twisted"),
+		FLIP("an edge is flipped");
+
+		/**
+		 * What the reason means.
+		 */
+		public final String description;
+
+		Reason(String description) {
+			this.description = description;
+		}
+	}
+
+	/**
+	 * The stickers of the goal state, which tell the order of the stickers of each corner.
+	 */
+	private final static char[] GOAL = Cube.GOAL.toCharArray();
+
+	/**
+	 * The colours in the order their counts are packed.
+	 */
+	private final static String COLORS = "RGYBOW";
+
+	/**
+	 * The index of each colour in COLORS, or -1, by character.
+	 */
+	private final static int[] COLOR_INDEX = initColorIndex();
+
+	/**
+	 * The position of the center of each colour, from Cube.CENTERS.
+	 */
+	private final static int[] CENTERS = initCenters();
+
+	private static int[] initColorIndex() {
+		int[] index = new int[128];
+		Arrays.fill(index, -1);
+		for (int color = 0; color < COLORS.length(); color++) {
+			index[COLORS.charAt(color)] = color;
+		}
+		return index;
+	}
+
+	private static int[] initCenters() {
+		int[] centers = new int[COLORS.length()];
+		for (Map.Entry<Character, Integer> center : Cube.CENTERS.entrySet()) {
+			centers[COLORS.indexOf(center.getKey())] = center.getValue();
+		}
+		return centers;
+	}
+
+	/**
+	 * Validates a state.
+	 * @param state the 54 stickers in the order of Cube.GOAL
+	 * @return VALID, or the first check the state fails
+	 */
+	public static Reason validate(char[] state) {
+		if (state.length != Cube.GOAL.length()) {
+			return Reason.LENGTH;
+		}
+		// Six bits of count per colour
+		long counts = 0;
+		for (char sticker : state) {
+			int color = sticker < COLOR_INDEX.length ? COLOR_INDEX[sticker] : -1;
+			if (color < 0) {
+				return Reason.COLOR;
+			}
+			counts += 1L << (6 * color);
+		}
+		for (int color = 0; color < COLORS.length(); color++) {
+			if ((counts >>> (6 * color) & 63) != 9) {
+				return Reason.STICKER_COUNT;
+			}
+			if (COLOR_INDEX[state[CENTERS[color]]] != color) {
+				return Reason.CENTERS;
+			}
+		}
+
+		int used = 0;
+		int inversions = 0;
+		int twists = 0;
+		for (int position = 0; position < Cube.CORNERS.length; position++) {
+			int corner = Cube.cornerAt(state, position);
+			if (corner < 0 || (used & (1 << corner)) != 0) {
+				return Reason.CORNERS;
+			}
+			int twist = Cube.cornerOrientationAt(state, position);
+			// A mirror image of a corner has the right colours in the wrong order
+			for (int i = 1; i < 3; i++) {
+				if (state[Cube.CORNERS[position][(twist + i) % 3]] != GOAL[Cube.CORNERS[corner][i]]) {
+					return Reason.CORNERS;
+				}
+			}
+			// The corners before this position that are larger than it
+			inversions += Integer.bitCount(used >>> corner);
+			used |= 1 << corner;
+			twists += twist;
+		}
+
+		used = 0;
+		int flips = 0;
+		for (int position = 0; position < Cube.EDGES.length; position++) {
+			int edge = Cube.edgeAt(state, position);
+			if (edge < 0 || (used & (1 << edge)) != 0) {
+				return Reason.EDGES;
+			}
+			inversions += Integer.bitCount(used >>> edge);
+			used |= 1 << edge;
+			flips += Cube.edgeOrientationAt(state, position);
+		}
+
+		if ((inversions & 1) != 0) {
+			return Reason.PARITY;
+		}
+		if (twists % 3 != 0) {
+			return Reason.TWIST;
+		}
+		if ((flips & 1) != 0) {
+			return Reason.FLIP;
+		}
+		return Reason.VALID;
+	}
+
+	/**
+	 * Validates a stream of states, one per line, and prints the line
+	 * number and the reason of every invalid one as CSV.
+	 * @param in the states, blank lines and lines starting with # are skipped
+	 * @param out where the invalid states are printed
+	 * @return the number of states with each reason, indexed by its ordinal
+	 */
+	public static long[] validate(BufferedReader in, PrintStream out) throws IOException {
+		long[] counts = new long[Reason.values().length];
+		char[] state = new char[Cube.GOAL.length()];
+		out.println("line,reason");
+		String line;
+		long lineNumber = 0;
+		while ((line = in.readLine()) != null) {
+			lineNumber++;
+			line = line.trim();
+			if (line.isEmpty() || line.startsWith("#")) {
+				continue;
+			}
+			Reason reason = Reason.LENGTH;
+			if (line.length() == state.length) {
+				line.getChars(0, state.length, state, 0);
+				reason = validate(state);
+			}
+			counts[reason.ordinal()]++;
+			if (reason != Reason.VALID) {
+				out.println(lineNumber + "," + reason);
+			}
+		}
+		return counts;
+	}
+
+	/**
+	 * Validates a file of states.
+	 * Usage: java CubeValidator [input]
+	 * The input has one state per line, written as the 54 stickers in the
+	 * same order as Cube.GOAL, like the input of Batch, or is - for standard
+	 * input, which is also the default. The invalid states are printed, and
+	 * how many states had each reason is printed to standard error.
+	 * @param args
+	 */
+	public static void main(String[] args) throws IOException {
+		String input = args.length > 0 ? args[0] : "-";
+		BufferedReader reader = input.equals("-")
+				? new BufferedReader(new InputStreamReader(System.in))
+				: new BufferedReader(new FileReader(input));
+		long[] counts;
+		try {
+			counts = validate(reader, System.out);
+		} finally {
+			reader.close();
+		}
+		System.out.flush();
+		for (Reason reason : Reason.values()) {
+			if (counts[reason.ordinal()] > 0) {
+				System.err.println(reason + ": " + counts[reason.ordinal()] + " (" + reason.description + ")");
+			}
+		}
+	}
+}
@@ -1,71 +1,58 @@
-import java.util.LinkedList;
-import java.util.Map;
-import java.util.Queue;
-import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 public class EdgeHeuristics {
-	public static void generateEdgeHeuristics(int set) {
-		// Make a cube and initialize it with a solved cube state
-		Cube cube = new Cube(Cube.GOAL.toCharArray());
-
-		// Make a new Queue to perform BFS
-		Queue<CubeNode> q = new LinkedList<CubeNode>();
-
-		// Put the solved/initial state of the cube on the queue
-		q.add(new CubeNode(cube.state, 0));
-		int[] edgeHeuristics = new int[42577920];
-		int[][] edges = new int[6][2];
-		int base = 6 * set;
-		int limit = 6 + base;
-
-		// Select the proper set of edges to work with
-		if (set == 0 || set == 1) {
-			int[][] tempEdges = Cube.EDGES;
-			for (int i = base; i < limit; i++) {
-				edges[i - base] = tempEdges[i];
-			}
-		} else {
-			System.err.println("Please specify a valid set of edges");
+	/**
+	 * Generates the heuristics for one of the two sets of edges with a
+	 * breadth-first search starting from a solved cube. The search runs
+	 * level by level on all cores, see PdbGenerator.
+	 * @param set 0 for the first six edges, 1 for the last six edges
+	 * @param metric the metric the distances are measured in
+	 * @return the table of edge heuristics
+	 */
+	public static PatternDatabase generateEdgeHeuristics(int set, Metric metric) {
+		// Make sure we have a proper set of edges to work with
+		if (set != 0 && set != 1) {
+			throw new IllegalArgumentException("Please specify a valid set of edges");
 		}
+		return generateEdgeHeuristics(set == 0 ? EdgeSubset.SET_ONE : EdgeSubset.SET_TWO, metric);
+	}
 
-		Set<Map.Entry<Character, int[]>> faces = Cube.FACES.entrySet();
-
-		// Iterate until we can't anymore
-		while (!q.isEmpty()) {
-			CubeNode current = q.poll();
-			// For each cube state we're given, we need to try all of
-			// possible turns of each other other faces
-			for (Map.Entry<Character, int[]> face : faces) {
-				// Do a clockwise turn
-				char[] newState = Cube.rotate(current.state, face.getKey(), 1);
-				int encodedEdge = Integer.parseInt(Cube.encodeEdges(newState).substring(base, limit));
-				// Check to see if this combination has been made before
-				if (edgeHeuristics[encodedEdge] == 0) {
-					// This is a new combination, let's add it to the queue
-					q.add(new CubeNode(newState, current.heuristic + 1));
-				}
-			}
-
-			// Handle the current node. We'll encode the edgeHeuristics, and check to
-			// see if we've seen this permutation before.
-			String encodedEdge = Cube.encodeEdges(current.state).substring(base, limit);
-			int encodedEdgeInt = Integer.parseInt(encodedEdge);
-			if (edgeHeuristics[encodedEdgeInt] == 0) {
-				edgeHeuristics[encodedEdgeInt] = current.heuristic;
-				// Print this out
-				System.out.println(encodedEdgeInt + "," + current.heuristic);
-			}
-		}
+	/**
+	 * Generates the heuristics for any subset of the edges. Every edge
+	 * added to the subset multiplies the size of the table by 12 - count
+	 * and by 2 for its flip, see EdgeSubset.
+	 * @param edges the edges to track
+	 * @param metric the metric the distances are measured in
+	 * @return the table of edge heuristics
+	 */
+	public static PatternDatabase generateEdgeHeuristics(EdgeSubset edges, Metric metric) {
+		long goal = edges.rank(Cube.GOAL.toCharArray());
+		return new PdbGenerator(edges, metric, ForkJoinPool.commonPool()).generate(goal, true);
 	}
 
+	/**
+	 * A main function to kick off the heuristic table generation.
+	 * The first argument is the set of edges, either 0 or 1 for the two sets
+	 * of six or a subset such as 0-6 (see EdgeSubset.parse), the second
+	 * argument is the file to write the table to and the third argument is
+	 * the metric, qtm or htm, which defaults to htm.
+	 * @param args
+	 */
 	public static void main(String[] args) {
-		if (args.length <= 0) {
-			// Generate first set of edge heuristics
-			//EdgeHeuristics.generateEdgeHeuristics(0);
-			// Generate second set of edge heuristics
-			EdgeHeuristics.generateEdgeHeuristics(1);
+		String set = args.length > 0 ? args[0] : "1";
+		EdgeSubset edges;
+		String fileName;
+		if (set.equals("0") || set.equals("1")) {
+			edges = set.equals("0") ? EdgeSubset.SET_ONE : EdgeSubset.SET_TWO;
+			fileName = set.equals("0") ? "edgesSetOne.pdb" : "edgesSetTwo.pdb";
 		} else {
-			EdgeHeuristics.generateEdgeHeuristics(Integer.parseInt(args[0]));
+			edges = EdgeSubset.parse(set);
+			fileName = "edges" + edges + ".pdb";
+		}
+		if (args.length > 1) {
+			fileName = args[1];
 		}
+		Metric metric = args.length > 2 ? Metric.parse(args[2]) : Metric.HALF_TURN;
+		EdgeHeuristics.generateEdgeHeuristics(edges, metric).save(fileName);
 	}
 }
@@ -0,0 +1,233 @@
+/**
+ * A set of edge cubies that an edge pattern database tracks.
+ *
+ * The edges are numbered by their place in Cube.EDGES. The coordinate of a
+ * subset of k edges ranks the positions of its edges, in increasing order
+ * of their number, as a sequence of k out of the 12 edge positions, and
+ * appends the flip of every edge, the first edge in the highest bit:
+ *   rank = positions * 2^k + flips
+ * For the two sets of six edges the search keeps track of, edges 0-5 and
+ * 6-11, this is exactly Cube.rankEdges, so the tables of those sets are
+ * subsets like any other.
+ *
+ * A table of k edges has 12! / (12 - k)! * 2^k entries:
+ *   6 edges    42,577,920 entries,  20 MB
+ *   7 edges   510,935,040 entries, 244 MB
+ *   8 edges 5,109,350,400 entries, 2.4 GB
+ */
+public class EdgeSubset {
+
+	/**
+	 * The first set of edges of the search, edges 0-5.
+	 */
+	public final static EdgeSubset SET_ONE = new EdgeSubset(0x03F);
+
+	/**
+	 * The second set of edges of the search, edges 6-11.
+	 */
+	public final static EdgeSubset SET_TWO = new EdgeSubset(0xFC0);
+
+	/**
+	 * The positions of the edges of a set of six for each permutation rank,
+	 * packed 4 bits per edge, the first edge in the lowest bits.
+	 */
+	private final static int[] SET_POSITIONS = initSetPositions();
+
+	/**
+	 * The edges of this subset, one bit per edge in the order of Cube.EDGES.
+	 */
+	public final int mask;
+
+	/**
+	 * The number of edges in this subset.
+	 */
+	public final int count;
+
+	/**
+	 * The number of coordinates, which is the size of the table.
+	 */
+	public final long size;
+
+	private final int[] edges;
+
+	/**
+	 * @param mask the edges, one bit per edge in the order of Cube.EDGES
+	 */
+	public EdgeSubset(int mask) {
+		if (mask <= 0 || mask >= 1 << 12) {
+			throw new IllegalArgumentException("Please specify a valid set of edges");
+		}
+		this.mask = mask;
+		this.count = Integer.bitCount(mask);
+		this.edges = new int[this.count];
+		long permutations = 1;
+		for (int edge = 0, i = 0; edge < 12; edge++) {
+			if ((mask & (1 << edge)) != 0) {
+				permutations *= 12 - i;
+				this.edges[i++] = edge;
+			}
+		}
+		this.size = permutations << this.count;
+	}
+
+	/**
+	 * Parses a subset written as edge numbers and ranges, eg: 0-6 or 0,2,4-8.
+	 * @param edges the edges
+	 * @return the subset
+	 */
+	public static EdgeSubset parse(String edges) {
+		int mask = 0;
+		try {
+			for (String part : edges.split(",")) {
+				part = part.trim();
+				int dash = part.indexOf('-');
+				int first = Integer.parseInt(dash < 0 ? part : part.substring(0, dash).trim());
+				int last = dash < 0 ? first : Integer.parseInt(part.substring(dash + 1).trim());
+				if (first < 0 || last > 11 || first > last) {
+					throw new IllegalArgumentException("Edges are numbered 0 to 11: " + edges);
+				}
+				for (int edge = first; edge <= last; edge++) {
+					mask |= 1 << edge;
+				}
+			}
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Not a set of edges: " + edges);
+		}
+		return new EdgeSubset(mask);
+	}
+
+	/**
+	 * Ranks this subset from the coordinates of the search.
+	 * Does not allocate, since it is called for every node of a search.
+	 * @param edgesSetOne the rank of the first set of edges, as built by Cube.rankEdges
+	 * @param edgesSetTwo the rank of the second set of edges
+	 * @return the coordinate of this subset
+	 */
+	public long rank(int edgesSetOne, int edgesSetTwo) {
+		long positions = SET_POSITIONS[edgesSetOne >>> Cube.EDGE_SET_SIZE]
+				| (long) SET_POSITIONS[edgesSetTwo >>> Cube.EDGE_SET_SIZE] << (4 * Cube.EDGE_SET_SIZE);
+		// The flip of edge e is bit 11 - e
+		int flips = ((edgesSetOne & (Cube.EDGE_ORIENTATIONS - 1)) << Cube.EDGE_SET_SIZE)
+				| (edgesSetTwo & (Cube.EDGE_ORIENTATIONS - 1));
+		long rank = 0;
+		int used = 0;
+		int rankedFlips = 0;
+		for (int i = 0; i < this.count; i++) {
+			int edge = this.edges[i];
+			int position = (int) (positions >>> (4 * edge)) & 15;
+			rank = rank * (12 - i) + position - Integer.bitCount(used & ((1 << position) - 1));
+			used |= 1 << position;
+			rankedFlips = (rankedFlips << 1) | ((flips >>> (11 - edge)) & 1);
+		}
+		return (rank << this.count) | rankedFlips;
+	}
+
+	/**
+	 * Ranks this subset from the state of a cube.
+	 * @param state the state of the cube
+	 * @return the coordinate of this subset, or -1 if the edges aren't valid
+	 */
+	public long rank(char[] state) {
+		int edgesSetOne = Cube.rankEdges(state, 0);
+		int edgesSetTwo = Cube.rankEdges(state, 1);
+		if (edgesSetOne < 0 || edgesSetTwo < 0) {
+			return -1;
+		}
+		return rank(edgesSetOne, edgesSetTwo);
+	}
+
+	/**
+	 * Applies a move to a coordinate of this subset.
+	 * @param edges the coordinate
+	 * @param move the move
+	 * @return the coordinate after the move
+	 */
+	public long move(long edges, int move) {
+		if (this.count == Cube.EDGE_SET_SIZE) {
+			// Only the positions matter, so the table of the search serves any six edges
+			return MoveTables.moveEdges((int) edges, move);
+		}
+		int permutation = (int) (edges >>> this.count);
+		int flips = (int) edges & ((1 << this.count) - 1);
+		long positions = unrank(permutation, this.count);
+		int[] moved = MoveTables.EDGE_POSITIONS[move];
+		int[] flipped = MoveTables.EDGE_FLIPS[move];
+		long rank = 0;
+		int used = 0;
+		for (int i = 0; i < this.count; i++) {
+			int position = (int) (positions >>> (4 * i)) & 15;
+			int target = moved[position];
+			rank = rank * (12 - i) + target - Integer.bitCount(used & ((1 << target) - 1));
+			used |= 1 << target;
+			flips ^= flipped[position] << (this.count - 1 - i);
+		}
+		return (rank << this.count) | flips;
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		return other instanceof EdgeSubset && ((EdgeSubset) other).mask == this.mask;
+	}
+
+	@Override
+	public int hashCode() {
+		return this.mask;
+	}
+
+	/**
+	 * @return the edges as parse reads them, eg: 0-6
+	 */
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < this.count; i++) {
+			int last = i;
+			while (last + 1 < this.count && this.edges[last + 1] == this.edges[last] + 1) {
+				last++;
+			}
+			if (builder.length() > 0) {
+				builder.append(',');
+			}
+			builder.append(this.edges[i]);
+			if (last > i) {
+				builder.append('-').append(this.edges[last]);
+			}
+			i = last;
+		}
+		return builder.toString();
+	}
+
+	private static int[] initSetPositions() {
+		int[] table = new int[Cube.EDGE_PERMUTATIONS];
+		for (int rank = 0; rank < table.length; rank++) {
+			table[rank] = (int) unrank(rank, Cube.EDGE_SET_SIZE);
+		}
+		return table;
+	}
+
+	/**
+	 * The same as Cube.unrankPermutation over the 12 edge positions,
+	 * for positions packed 4 bits each.
+	 */
+	private static long unrank(int rank, int count) {
+		int[] digits = new int[count];
+		for (int i = count - 1; i >= 0; i--) {
+			digits[i] = rank % (12 - i);
+			rank /= 12 - i;
+		}
+		long positions = 0;
+		int used = 0;
+		for (int i = 0; i < count; i++) {
+			int position = -1;
+			for (int digit = digits[i]; digit >= 0; digit--) {
+				position++;
+				while ((used & (1 << position)) != 0) {
+					position++;
+				}
+			}
+			used |= 1 << position;
+			positions |= (long) position << (4 * i);
+		}
+		return positions;
+	}
+}
@@ -0,0 +1,217 @@
+import java.nio.ByteBuffer;
+
+/**
+ * Every state within a few moves of the goal, with its exact distance, so
+ * a search can meet the goal in the middle instead of walking all the way.
+ *
+ * The frontier is built once with a breadth-first search backward from the
+ * solved cube. A search that reaches a state in the frontier knows its
+ * exact distance, and one that reaches a state outside of it knows the
+ * distance is more than the depth of the frontier, which is often more
+ * than the pattern databases can tell. Only states the tables put within
+ * the depth have to be looked up at all.
+ *
+ * The states are kept in an open addressing hash table with linear probing
+ * in a direct buffer, outside of the Java heap. Each slot is 16 bytes:
+ *   long  1 bit set when the slot is used, the corner rank and the rank of the first edge set
+ *   long  the rank of the second edge set and the distance
+ * The number of states at each distance is known, so the table is sized
+ * up front and a frontier that would not fit in the memory it is given is
+ * built to a smaller depth.
+ */
+public class Frontier {
+
+	/**
+	 * The number of states at each distance in the half-turn metric.
+	 */
+	private static final long[] HALF_TURN_STATES = { 1, 18, 243, 3240, 43239, 574908, 7618438, 100803036L };
+
+	/**
+	 * The number of states at each distance in the quarter-turn metric.
+	 */
+	private static final long[] QUARTER_TURN_STATES = { 1, 12, 114, 1068, 10011, 93840, 878880, 8221632,
+			76843595L };
+
+	/**
+	 * The number of bytes in a slot of the table.
+	 */
+	private static final int SLOT_SIZE = 16;
+
+	/**
+	 * The largest number of slots, which keeps the table in one buffer.
+	 */
+	private static final long MAX_SLOTS = 1L << 26;
+
+	/**
+	 * The largest share of the slots that may be used.
+	 */
+	private static final double MAX_LOAD = 0.7;
+
+	private static final long USED = 1L << 63;
+
+	/**
+	 * The metric the distances are measured in.
+	 */
+	public final Metric metric;
+
+	/**
+	 * Every state at this distance or closer to the goal is in the frontier.
+	 */
+	public final int depth;
+
+	/**
+	 * The number of states in the frontier.
+	 */
+	public final long size;
+
+	private final int[] moves;
+	private final ByteBuffer table;
+	private final int mask;
+
+	/**
+	 * Builds a frontier.
+	 * @param metric the metric the distances are measured in
+	 * @param depth the distance to build the frontier to
+	 * @param maxBytes the most memory the table may take, which may make it shallower
+	 */
+	public Frontier(Metric metric, int depth, long maxBytes) {
+		long[] states = metric == Metric.HALF_TURN ? HALF_TURN_STATES : QUARTER_TURN_STATES;
+		depth = Math.min(depth, states.length - 1);
+		while (depth > 0 && slots(states, depth) * SLOT_SIZE > maxBytes) {
+			depth--;
+		}
+		this.metric = metric;
+		this.depth = depth;
+		this.moves = metric.generators();
+		int slots = (int) slots(states, depth);
+		this.table = ByteBuffer.allocateDirect(slots * SLOT_SIZE);
+		this.mask = slots - 1;
+
+		char[] goal = Cube.GOAL.toCharArray();
+		long size = 0;
+		if (insert(Cube.rankCorners(goal), Cube.rankEdges(goal, 0), Cube.rankEdges(goal, 1), 0)) {
+			size++;
+		}
+		for (int distance = 0; distance < depth; distance++) {
+			// States found in this pass have the next distance, so the scan skips them
+			for (int slot = 0; slot < slots; slot++) {
+				long first = this.table.getLong(slot * SLOT_SIZE);
+				long second = this.table.getLong(slot * SLOT_SIZE + 8);
+				if (first == 0 || (int) (second & 0xFF) != distance) {
+					continue;
+				}
+				int corners = (int) ((first & ~USED) >>> 26);
+				int edgesSetOne = (int) (first & ((1 << 26) - 1));
+				int edgesSetTwo = (int) (second >>> 8);
+				for (int move : this.moves) {
+					if (insert(MoveTables.moveCorners(corners, move), MoveTables.moveEdges(edgesSetOne, move),
+							MoveTables.moveEdges(edgesSetTwo, move), distance + 1)) {
+						size++;
+					}
+				}
+			}
+		}
+		this.size = size;
+	}
+
+	/**
+	 * The number of slots a frontier of the given depth needs: a power of two
+	 * that keeps the load under MAX_LOAD.
+	 */
+	private static long slots(long[] states, int depth) {
+		long total = 0;
+		for (int distance = 0; distance <= depth; distance++) {
+			total += states[distance];
+		}
+		long slots = 2;
+		while (slots * MAX_LOAD < total) {
+			slots <<= 1;
+		}
+		return slots > MAX_SLOTS ? Long.MAX_VALUE / SLOT_SIZE : slots;
+	}
+
+	/**
+	 * Looks up the distance of a state. Does not allocate, since it is called
+	 * during a search.
+	 * @param corners the rank of the corners, as built by Cube.rankCorners
+	 * @param edgesSetOne the rank of the first set of edges, as built by Cube.rankEdges
+	 * @param edgesSetTwo the rank of the second set of edges
+	 * @return the distance of the state to the goal, or -1 if it is not in the frontier
+	 */
+	public int distance(int corners, int edgesSetOne, int edgesSetTwo) {
+		long first = USED | (long) corners << 26 | edgesSetOne;
+		for (int slot = hash(first, edgesSetTwo); ; slot = (slot + 1) & this.mask) {
+			long stored = this.table.getLong(slot * SLOT_SIZE);
+			if (stored == 0) {
+				return -1;
+			}
+			long second = this.table.getLong(slot * SLOT_SIZE + 8);
+			if (stored == first && (int) (second >>> 8) == edgesSetTwo) {
+				return (int) (second & 0xFF);
+			}
+		}
+	}
+
+	/**
+	 * Finds the moves from a state in the frontier to the goal.
+	 * @param corners the rank of the corners
+	 * @param edgesSetOne the rank of the first set of edges
+	 * @param edgesSetTwo the rank of the second set of edges
+	 * @return the moves, as numbered by Move
+	 */
+	public byte[] path(int corners, int edgesSetOne, int edgesSetTwo) {
+		int distance = distance(corners, edgesSetOne, edgesSetTwo);
+		if (distance < 0) {
+			throw new IllegalArgumentException("The state is not in the frontier");
+		}
+		// Every generator costs one, so each step is one move closer
+		byte[] path = new byte[distance];
+		for (int i = 0; i < path.length; i++) {
+			for (int move : this.moves) {
+				int nextCorners = MoveTables.moveCorners(corners, move);
+				int nextEdgesSetOne = MoveTables.moveEdges(edgesSetOne, move);
+				int nextEdgesSetTwo = MoveTables.moveEdges(edgesSetTwo, move);
+				if (distance(nextCorners, nextEdgesSetOne, nextEdgesSetTwo) == distance - 1) {
+					path[i] = (byte) move;
+					corners = nextCorners;
+					edgesSetOne = nextEdgesSetOne;
+					edgesSetTwo = nextEdgesSetTwo;
+					distance--;
+					break;
+				}
+			}
+		}
+		return path;
+	}
+
+	/**
+	 * @return the number of bytes the table takes up outside of the heap
+	 */
+	public long bytes() {
+		return this.table.capacity();
+	}
+
+	/**
+	 * Adds a state unless it is already in the table.
+	 * @return true if the state was added
+	 */
+	private boolean insert(int corners, int edgesSetOne, int edgesSetTwo, int distance) {
+		long first = USED | (long) corners << 26 | edgesSetOne;
+		for (int slot = hash(first, edgesSetTwo); ; slot = (slot + 1) & this.mask) {
+			long stored = this.table.getLong(slot * SLOT_SIZE);
+			if (stored == 0) {
+				this.table.putLong(slot * SLOT_SIZE, first);
+				this.table.putLong(slot * SLOT_SIZE + 8, (long) edgesSetTwo << 8 | distance);
+				return true;
+			}
+			if (stored == first && (int) (this.table.getLong(slot * SLOT_SIZE + 8) >>> 8) == edgesSetTwo) {
+				return false;
+			}
+		}
+	}
+
+	private int hash(long first, int edgesSetTwo) {
+		long h = (first ^ (long) edgesSetTwo * 0x9E3779B97F4A7C15L) * 0xC2B2AE3D27D4EB4FL;
+		return (int) (h ^ (h >>> 32)) & this.mask;
+	}
+}
@@ -0,0 +1,246 @@
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An estimate of the number of moves it takes to solve a cube,
+ * used by IDAStar to decide which nodes are worth expanding.
+ * Heuristics are built from pattern databases and can be combined
+ * by taking the maximum of several of them.
+ */
+public abstract class Heuristic {
+
+	/**
+	 * A short name used when printing results, e.g. max(corners,edgesSetOne).
+	 */
+	private final String name;
+
+	/**
+	 * The heuristics this one combines, none for a single table.
+	 */
+	private final Heuristic[] parts;
+
+	/**
+	 * @param name a short name used when printing results
+	 */
+	protected Heuristic(String name) {
+		this(name, new Heuristic[0]);
+	}
+
+	/**
+	 * @param name a short name used when printing results
+	 * @param parts the heuristics this one combines
+	 */
+	protected Heuristic(String name, Heuristic... parts) {
+		this.name = name;
+		this.parts = parts.clone();
+	}
+
+	/**
+	 * Estimates the number of moves it takes to solve a cube from its coordinates.
+	 * Must not allocate, since it is called for every node of a search.
+	 * @param corners the rank of the corners, as built by Cube.rankCorners
+	 * @param edgesSetOne the rank of the first set of edges, as built by Cube.rankEdges
+	 * @param edgesSetTwo the rank of the second set of edges
+	 * @return the estimated number of moves
+	 */
+	public abstract int estimate(int corners, int edgesSetOne, int edgesSetTwo);
+
+	/**
+	 * Estimates the number of moves it takes to solve a cube.
+	 * @param state the state of the cube
+	 * @return the estimated number of moves
+	 */
+	public int estimate(char[] state) {
+		return estimate(Cube.rankCorners(state), Cube.rankEdges(state, 0), Cube.rankEdges(state, 1));
+	}
+
+	/**
+	 * Counts the pattern database lookups of one estimate. A heuristic that
+	 * combines others looks up all of their tables every time, so the
+	 * lookups of a search are its estimates times these counts.
+	 * @return the number of lookups of each table, by the name of the table
+	 */
+	public Map<String, Integer> lookups() {
+		Map<String, Integer> lookups = new TreeMap<String, Integer>();
+		if (this.parts.length == 0) {
+			lookups.put(this.name, 1);
+		}
+		for (Heuristic part : this.parts) {
+			for (Map.Entry<String, Integer> lookup : part.lookups().entrySet()) {
+				Integer count = lookups.get(lookup.getKey());
+				lookups.put(lookup.getKey(), (count == null ? 0 : count) + lookup.getValue());
+			}
+		}
+		return lookups;
+	}
+
+	@Override
+	public String toString() {
+		return this.name;
+	}
+
+	/**
+	 * A heuristic that looks up the corners in a corner pattern database,
+	 * either a full table or one with an entry per symmetry class.
+	 * @param name a short name used when printing results
+	 * @param corners the corner pattern database
+	 * @return the heuristic
+	 */
+	public static Heuristic corners(String name, final PatternDatabase corners) {
+		if (corners.kind != PatternDatabase.KIND_CORNERS) {
+			throw new IllegalArgumentException(name + " is not a corner table");
+		}
+		if (corners.scheme == PatternDatabase.SCHEME_SYMMETRY_REDUCED) {
+			return new Heuristic(name) {
+				@Override
+				public int estimate(int rankedCorners, int edgesSetOne, int edgesSetTwo) {
+					return corners.get(Symmetry.reduceCorners(rankedCorners));
+				}
+			};
+		}
+		if (corners.scheme != PatternDatabase.SCHEME_DENSE_FULL) {
+			throw new IllegalArgumentException(name + " uses an old index scheme, please regenerate it");
+		}
+		return new Heuristic(name) {
+			@Override
+			public int estimate(int rankedCorners, int edgesSetOne, int edgesSetTwo) {
+				return corners.get(rankedCorners);
+			}
+		};
+	}
+
+	/**
+	 * A heuristic that looks up one set of edges in an edge pattern database.
+	 * @param name a short name used when printing results
+	 * @param edges the edge pattern database
+	 * @param set the set of edges the table was generated for
+	 * @return the heuristic
+	 */
+	public static Heuristic edges(String name, PatternDatabase edges, int set) {
+		return edges(name, edges, set == 0 ? EdgeSubset.SET_ONE : EdgeSubset.SET_TWO);
+	}
+
+	/**
+	 * A heuristic that looks up the edges an edge pattern database was generated for.
+	 * @param name a short name used when printing results
+	 * @param edges the edge pattern database
+	 * @return the heuristic
+	 */
+	public static Heuristic edges(String name, PatternDatabase edges) {
+		if (edges.edges == null) {
+			throw new IllegalArgumentException(name + " does not say which edges it holds, please regenerate it");
+		}
+		return edges(name, edges, edges.edges);
+	}
+
+	/**
+	 * A heuristic that looks up any subset of the edges in an edge pattern database.
+	 * @param name a short name used when printing results
+	 * @param edges the edge pattern database
+	 * @param subset the edges the table was generated for
+	 * @return the heuristic
+	 */
+	public static Heuristic edges(String name, final PatternDatabase edges, final EdgeSubset subset) {
+		if (edges.kind != PatternDatabase.KIND_EDGES) {
+			throw new IllegalArgumentException(name + " is not an edge table");
+		}
+		if (edges.size != subset.size || (edges.edges != null && !edges.edges.equals(subset))) {
+			throw new IllegalArgumentException(name + " was not generated for edges " + subset);
+		}
+		// The two sets of the search need no ranking
+		if (subset.equals(EdgeSubset.SET_ONE)) {
+			return new Heuristic(name) {
+				@Override
+				public int estimate(int corners, int edgesSetOne, int edgesSetTwo) {
+					return edges.get(edgesSetOne);
+				}
+			};
+		}
+		if (subset.equals(EdgeSubset.SET_TWO)) {
+			return new Heuristic(name) {
+				@Override
+				public int estimate(int corners, int edgesSetOne, int edgesSetTwo) {
+					return edges.get(edgesSetTwo);
+				}
+			};
+		}
+		return new Heuristic(name) {
+			@Override
+			public int estimate(int corners, int edgesSetOne, int edgesSetTwo) {
+				return edges.get(subset.rank(edgesSetOne, edgesSetTwo));
+			}
+		};
+	}
+
+	/**
+	 * A heuristic that takes the maximum of other heuristics, as per Korf's paper.
+	 * The maximum of admissible heuristics is admissible.
+	 * @param heuristics the heuristics to combine
+	 * @return the heuristic
+	 */
+	public static Heuristic max(final Heuristic... heuristics) {
+		return new Heuristic("max" + names(heuristics), heuristics) {
+			@Override
+			public int estimate(int corners, int edgesSetOne, int edgesSetTwo) {
+				int max = 0;
+				for (Heuristic heuristic : heuristics) {
+					int h = heuristic.estimate(corners, edgesSetOne, edgesSetTwo);
+					if (h > max) {
+						max = h;
+					}
+				}
+				return max;
+			}
+		};
+	}
+
+	/**
+	 * A heuristic that estimates the inverse of the state instead. A state
+	 * and its inverse are equally far from solved, so this is admissible
+	 * whenever the given heuristic is, and combined with it by max it
+	 * often gives a larger bound from the same tables.
+	 * @param heuristic the heuristic to look up the inverse with
+	 * @return the heuristic
+	 */
+	public static Heuristic inverse(final Heuristic heuristic) {
+		return new Heuristic("inverse(" + heuristic + ")", heuristic) {
+			@Override
+			public int estimate(int corners, int edgesSetOne, int edgesSetTwo) {
+				return heuristic.estimate(Symmetry.inverseCorners(corners),
+						Symmetry.inverseEdges(edgesSetOne, edgesSetTwo, 0),
+						Symmetry.inverseEdges(edgesSetOne, edgesSetTwo, 1));
+			}
+		};
+	}
+
+	/**
+	 * A heuristic that estimates a conjugate of the state instead, which is
+	 * as far from solved as the state itself. The conjugate puts other edges
+	 * into the slots the edge tables track, so the edge tables look at other
+	 * sets of edges. The corner table always gives the same value.
+	 * @param heuristic the heuristic to look up the conjugate with
+	 * @param symmetry the symmetry to conjugate by, see Symmetry
+	 * @return the heuristic
+	 */
+	public static Heuristic conjugate(final Heuristic heuristic, final int symmetry) {
+		return new Heuristic("conjugate" + symmetry + "(" + heuristic + ")", heuristic) {
+			@Override
+			public int estimate(int corners, int edgesSetOne, int edgesSetTwo) {
+				return heuristic.estimate(Symmetry.conjugateCorners(corners, symmetry),
+						Symmetry.conjugateEdges(edgesSetOne, edgesSetTwo, symmetry, 0),
+						Symmetry.conjugateEdges(edgesSetOne, edgesSetTwo, symmetry, 1));
+			}
+		};
+	}
+
+	private static String names(Heuristic[] heuristics) {
+		StringBuilder builder = new StringBuilder("(");
+		for (int i = 0; i < heuristics.length; i++) {
+			if (i > 0) {
+				builder.append(',');
+			}
+			builder.append(heuristics[i]);
+		}
+		return builder.append(')').toString();
+	}
+}
@@ -0,0 +1,66 @@
+/**
+ * The way the length of a solution is measured.
+ */
+public enum Metric {
+	/**
+	 * Every quarter turn counts as one move, so a half turn counts as two.
+	 */
+	QUARTER_TURN("qtm"),
+
+	/**
+	 * Every turn of a face counts as one move, whether it is a quarter
+	 * or a half turn.
+	 */
+	HALF_TURN("htm");
+
+	/**
+	 * The short name used on the command line.
+	 */
+	public final String shortName;
+
+	Metric(String shortName) {
+		this.shortName = shortName;
+	}
+
+	/**
+	 * @param move the move
+	 * @return what the move costs in this metric
+	 */
+	public int cost(int move) {
+		if (this == QUARTER_TURN && Move.turns(move) == 2) {
+			return 2;
+		}
+		return 1;
+	}
+
+	/**
+	 * The moves a breadth-first search has to apply to find the distance of
+	 * every state in this metric. For the quarter-turn metric these are the
+	 * quarter turns, since a half turn is two of them.
+	 * @return the moves
+	 */
+	public int[] generators() {
+		int[] moves = new int[this == QUARTER_TURN ? 12 : Move.COUNT];
+		int i = 0;
+		for (int move = 0; move < Move.COUNT; move++) {
+			if (this == HALF_TURN || Move.turns(move) != 2) {
+				moves[i++] = move;
+			}
+		}
+		return moves;
+	}
+
+	/**
+	 * Finds a metric by its short name.
+	 * @param shortName qtm or htm
+	 * @return the metric
+	 */
+	public static Metric parse(String shortName) {
+		for (Metric metric : values()) {
+			if (metric.shortName.equalsIgnoreCase(shortName)) {
+				return metric;
+			}
+		}
+		throw new IllegalArgumentException("Unknown metric " + shortName + ", use qtm or htm");
+	}
+}
@@ -0,0 +1,151 @@
+/**
+ * The face turns of a Rubik's cube.
+ * A move is a face and a number of clockwise quarter turns (1, 2 or 3),
+ * numbered face * 3 + turns - 1, so a move fits in a byte and can be
+ * used as an array index. A solution is written as the face followed
+ * by the number of clockwise turns, eg: O1R3.
+ */
+public class Move {
+
+	/**
+	 * The faces, ordered so that opposite faces are next to each other.
+	 * The opposite of face f is face f ^ 1.
+	 */
+	public final static char[] FACES = {'R', 'O', 'G', 'B', 'Y', 'W'};
+
+	/**
+	 * The number of moves, 6 faces times 3 amounts of turns.
+	 */
+	public final static int COUNT = 18;
+
+	/**
+	 * Used as the previous move at the start of a sequence, where every move is allowed.
+	 */
+	public final static int NONE = -1;
+
+	/**
+	 * The permutation of the stickers for each move: after the move,
+	 * sticker i holds what sticker FACELETS[move][i] held before.
+	 */
+	private final static int[][] FACELETS = initFacelets();
+
+	/**
+	 * Turns a cube whose stickers are labelled with their own index once
+	 * for each move, which shows where every sticker comes from.
+	 */
+	private static int[][] initFacelets() {
+		char[] labels = new char[Cube.GOAL.length()];
+		for (int i = 0; i < labels.length; i++) {
+			labels[i] = (char) i;
+		}
+		int[][] facelets = new int[COUNT][labels.length];
+		char[] turned = new char[labels.length];
+		for (int move = 0; move < COUNT; move++) {
+			Cube.rotate(labels, faceColor(move), turns(move), turned);
+			for (int i = 0; i < labels.length; i++) {
+				facelets[move][i] = turned[i];
+			}
+		}
+		return facelets;
+	}
+
+	/**
+	 * Builds a move.
+	 * @param face the index of the face in FACES
+	 * @param turns the number of clockwise quarter turns, 1 to 3
+	 * @return the move
+	 */
+	public static int of(int face, int turns) {
+		return face * 3 + turns - 1;
+	}
+
+	/**
+	 * @param move the move
+	 * @return the index of the face in FACES
+	 */
+	public static int face(int move) {
+		return move / 3;
+	}
+
+	/**
+	 * @param move the move
+	 * @return the character of the face that is turned
+	 */
+	public static char faceColor(int move) {
+		return FACES[move / 3];
+	}
+
+	/**
+	 * @param move the move
+	 * @return the number of clockwise quarter turns, 1 to 3
+	 */
+	public static int turns(int move) {
+		return move % 3 + 1;
+	}
+
+	/**
+	 * @param move the move
+	 * @return the move that undoes the given move
+	 */
+	public static int inverse(int move) {
+		return of(face(move), 4 - turns(move));
+	}
+
+	/**
+	 * Decides whether a move may follow another one in a search. Turning the
+	 * same face twice in a row is never needed, since the two turns can be
+	 * merged into one. Turns of opposite faces commute, so they are only
+	 * allowed in one order: the face that comes first in FACES goes first.
+	 * @param previous the previous move, or NONE
+	 * @param move the next move
+	 * @return true if the move is allowed
+	 */
+	public static boolean allowed(int previous, int move) {
+		if (previous == NONE) {
+			return true;
+		}
+		int face = face(move);
+		int previousFace = face(previous);
+		if (face == previousFace) {
+			return false;
+		}
+		// An opposite face may only follow if it comes later in FACES
+		return (face ^ 1) != previousFace || face > previousFace;
+	}
+
+	/**
+	 * Applies a move to a cube with the precomputed sticker permutation,
+	 * which is cheaper than Cube.rotate.
+	 * @param state the state of the cube
+	 * @param move the move
+	 * @param newState the array that will hold the state after the move
+	 */
+	public static void apply(char[] state, int move, char[] newState) {
+		int[] facelets = FACELETS[move];
+		for (int i = 0; i < facelets.length; i++) {
+			newState[i] = state[facelets[i]];
+		}
+	}
+
+	/**
+	 * @param move the move
+	 * @return the move in our notation, eg: R3
+	 */
+	public static String toString(int move) {
+		return "" + faceColor(move) + turns(move);
+	}
+
+	/**
+	 * Formats a sequence of moves.
+	 * @param moves the moves
+	 * @param length the number of moves to use
+	 * @return the moves in our notation, eg: O1R3
+	 */
+	public static String toString(byte[] moves, int length) {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < length; i++) {
+			builder.append(faceColor(moves[i])).append(turns(moves[i]));
+		}
+		return builder.toString();
+	}
+}
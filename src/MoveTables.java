@@ -0,0 +1,162 @@
+/**
+ * Precomputed transition tables for the coordinates of a cube, so that a
+ * search or a pattern database generator can apply a move with a couple
+ * of array lookups instead of turning a 54 character state. The tables
+ * take about 60 MB, most of it for the edges, and are built once when
+ * the class is first used.
+ *
+ * The coordinates are the ranks built by Cube: the corner coordinate is
+ * Cube.rankCorners and an edge coordinate is Cube.rankEdges of one set of
+ * edges. Every table is indexed by coordinate * Move.COUNT + move.
+ */
+public class MoveTables {
+
+	/**
+	 * The position each corner moves to, indexed by [move][position].
+	 */
+	public final static int[][] CORNER_POSITIONS = new int[Move.COUNT][8];
+
+	/**
+	 * The twist each corner picks up, indexed by [move][position].
+	 */
+	public final static int[][] CORNER_TWISTS = new int[Move.COUNT][8];
+
+	/**
+	 * The position each edge moves to, indexed by [move][position].
+	 */
+	public final static int[][] EDGE_POSITIONS = new int[Move.COUNT][12];
+
+	/**
+	 * Whether each edge gets flipped, indexed by [move][position].
+	 */
+	public final static int[][] EDGE_FLIPS = new int[Move.COUNT][12];
+
+	static {
+		initCubieTables();
+	}
+
+	/**
+	 * Transitions of the corner permutation rank.
+	 */
+	private final static char[] CORNER_PERMUTATION = initCornerPermutation();
+
+	/**
+	 * Transitions of the corner orientation rank.
+	 */
+	private final static short[] CORNER_ORIENTATION = initCornerOrientation();
+
+	/**
+	 * Transitions of the edge permutation rank. The positions of a set of edges
+	 * move the same way no matter which edges are in the set, so one table
+	 * serves both sets.
+	 */
+	private final static int[] EDGE_PERMUTATION = new int[Cube.EDGE_PERMUTATIONS * Move.COUNT];
+
+	/**
+	 * The flips picked up by a set of edges, in the bit layout of the edge
+	 * orientation rank, for each edge permutation rank and move.
+	 */
+	private final static byte[] EDGE_FLIP = new byte[Cube.EDGE_PERMUTATIONS * Move.COUNT];
+
+	static {
+		initEdgePermutation();
+	}
+
+	/**
+	 * Applies a move to a corner coordinate.
+	 * @param corners the rank of the corners, as built by Cube.rankCorners
+	 * @param move the move
+	 * @return the rank of the corners after the move
+	 */
+	public static int moveCorners(int corners, int move) {
+		int permutation = corners / Cube.CORNER_ORIENTATIONS;
+		int orientation = corners - permutation * Cube.CORNER_ORIENTATIONS;
+		return CORNER_PERMUTATION[permutation * Move.COUNT + move] * Cube.CORNER_ORIENTATIONS
+				+ CORNER_ORIENTATION[orientation * Move.COUNT + move];
+	}
+
+	/**
+	 * Applies a move to an edge coordinate.
+	 * @param edges the rank of one set of edges, as built by Cube.rankEdges
+	 * @param move the move
+	 * @return the rank of the edges after the move
+	 */
+	public static int moveEdges(int edges, int move) {
+		int permutation = edges >>> Cube.EDGE_SET_SIZE;
+		int i = permutation * Move.COUNT + move;
+		return (EDGE_PERMUTATION[i] << Cube.EDGE_SET_SIZE) | ((edges & (Cube.EDGE_ORIENTATIONS - 1)) ^ EDGE_FLIP[i]);
+	}
+
+	/**
+	 * Finds out how each move permutes the cubies by turning a solved cube
+	 * once for each move.
+	 */
+	private static void initCubieTables() {
+		char[] goal = Cube.GOAL.toCharArray();
+		char[] state = new char[goal.length];
+		for (int move = 0; move < Move.COUNT; move++) {
+			// In a solved cube every cubie is at its own position, so after
+			// the move the cubie at each position tells where it came from
+			Move.apply(goal, move, state);
+			for (int position = 0; position < 8; position++) {
+				int corner = Cube.cornerAt(state, position);
+				CORNER_POSITIONS[move][corner] = position;
+				CORNER_TWISTS[move][corner] = Cube.cornerOrientationAt(state, position);
+			}
+			for (int position = 0; position < 12; position++) {
+				int edge = Cube.edgeAt(state, position);
+				EDGE_POSITIONS[move][edge] = position;
+				EDGE_FLIPS[move][edge] = Cube.edgeOrientationAt(state, position);
+			}
+		}
+	}
+
+	private static char[] initCornerPermutation() {
+		char[] table = new char[Cube.CORNER_PERMUTATIONS * Move.COUNT];
+		int[] corners = new int[8];
+		int[] moved = new int[8];
+		for (int rank = 0; rank < Cube.CORNER_PERMUTATIONS; rank++) {
+			Cube.unrankPermutation(rank, corners, 8);
+			for (int move = 0; move < Move.COUNT; move++) {
+				for (int position = 0; position < 8; position++) {
+					moved[CORNER_POSITIONS[move][position]] = corners[position];
+				}
+				table[rank * Move.COUNT + move] = (char) Cube.rankPermutation(moved, 8);
+			}
+		}
+		return table;
+	}
+
+	private static short[] initCornerOrientation() {
+		short[] table = new short[Cube.CORNER_ORIENTATIONS * Move.COUNT];
+		int[] twists = new int[8];
+		int[] moved = new int[8];
+		for (int rank = 0; rank < Cube.CORNER_ORIENTATIONS; rank++) {
+			Cube.unrankCornerOrientation(rank, twists);
+			for (int move = 0; move < Move.COUNT; move++) {
+				for (int position = 0; position < 8; position++) {
+					moved[CORNER_POSITIONS[move][position]] = (twists[position] + CORNER_TWISTS[move][position]) % 3;
+				}
+				table[rank * Move.COUNT + move] = (short) Cube.rankCornerOrientation(moved);
+			}
+		}
+		return table;
+	}
+
+	private static void initEdgePermutation() {
+		int[] positions = new int[Cube.EDGE_SET_SIZE];
+		int[] moved = new int[Cube.EDGE_SET_SIZE];
+		for (int rank = 0; rank < Cube.EDGE_PERMUTATIONS; rank++) {
+			Cube.unrankPermutation(rank, positions, 12);
+			for (int move = 0; move < Move.COUNT; move++) {
+				int flips = 0;
+				for (int i = 0; i < positions.length; i++) {
+					moved[i] = EDGE_POSITIONS[move][positions[i]];
+					flips = (flips << 1) | EDGE_FLIPS[move][positions[i]];
+				}
+				EDGE_PERMUTATION[rank * Move.COUNT + move] = Cube.rankPermutation(moved, 12);
+				EDGE_FLIP[rank * Move.COUNT + move] = (byte) flips;
+			}
+		}
+	}
+}
@@ -0,0 +1,413 @@
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ * A heuristic lookup table stored in our compact binary PDB format.
+ *
+ * Every entry is one nibble (4 bits), so a table only needs half a byte
+ * per state. Tables that are saved to disk are loaded back through
+ * FileChannel.map, which means loading is near-instant and the operating
+ * system's page cache is shared between every solver process on the host.
+ * Tables of more than 2^31 entries, like the 8 edge tables, are mapped in
+ * segments of SEGMENT_SIZE bytes.
+ *
+ * Loading only checks the header. Reading every entry to check the
+ * checksum would fault in the whole table, 2.4 GB for an 8 edge table, so
+ * it is only done by verify, or on every load when the system property
+ * pdb.verify is true.
+ *
+ * The file layout is a fixed 32 byte header followed by the packed entries:
+ *   0  int   magic number (RPDB)
+ *   4  short format version
+ *   6  byte  table kind (corners or edges)
+ *   7  byte  index scheme used to encode the states
+ *   8  byte  bits per entry
+ *   9  byte  metric the distances are measured in (the ordinal of Metric)
+ *   10 short edges of an edge table, one bit per edge (see EdgeSubset)
+ *   16 long  CRC32 checksum of the packed entries
+ *   24 long  number of entries
+ * Entry i is stored in byte (i / 2), the low nibble holding the even entries.
+ * Version 2 files have no edges and store the number of entries as an int at 12.
+ */
+public class PatternDatabase {
+
+	/**
+	 * The magic number at the start of every PDB file, "RPDB" in ASCII.
+	 */
+	public final static int MAGIC = 0x52504442;
+
+	/**
+	 * The version of the file format written by this class.
+	 */
+	public final static int VERSION = 3;
+
+	/**
+	 * The oldest version of the file format that can still be read.
+	 */
+	public final static int OLDEST_VERSION = 2;
+
+	/**
+	 * The size of the header in bytes.
+	 */
+	public final static int HEADER_SIZE = 32;
+
+	/**
+	 * The number of bytes in each buffer of a table. Every int index falls
+	 * in the first segment, so smaller tables only ever use one.
+	 */
+	public final static int SEGMENT_SIZE = 1 << 30;
+
+	/**
+	 * The system property that has every table verified when it is loaded.
+	 */
+	public final static String VERIFY_PROPERTY = "pdb.verify";
+
+	/**
+	 * The number of bits used by each entry.
+	 */
+	public final static int ENTRY_BITS = 4;
+
+	/**
+	 * The largest value an entry can hold. Larger values are clamped,
+	 * which keeps the heuristic admissible.
+	 */
+	public final static int MAX_VALUE = (1 << ENTRY_BITS) - 1;
+
+	/**
+	 * Table kind for a corner cubie table.
+	 */
+	public final static int KIND_CORNERS = 0;
+
+	/**
+	 * Table kind for an edge cubie table.
+	 */
+	public final static int KIND_EDGES = 1;
+
+	/**
+	 * Index scheme of the original CSV tables, where the index is the
+	 * decimal digit string of the old Cube.encodeCorners/encodeEdges.
+	 */
+	public final static int SCHEME_LEGACY_DECIMAL = 0;
+
+	/**
+	 * Index scheme where the index is the dense permutation rank built by
+	 * Cube.rankCornerPermutation/rankEdgePermutation.
+	 */
+	public final static int SCHEME_DENSE_PERMUTATION = 1;
+
+	/**
+	 * Index scheme where the index is the dense rank of both the positions and
+	 * the orientations of the cubies, built by Cube.rankCorners/rankEdges.
+	 */
+	public final static int SCHEME_DENSE_FULL = 2;
+
+	/**
+	 * Index scheme of a corner table with one entry per symmetry class,
+	 * built by Symmetry.reduceCorners.
+	 */
+	public final static int SCHEME_SYMMETRY_REDUCED = 3;
+
+	/**
+	 * The table kind, either KIND_CORNERS or KIND_EDGES.
+	 */
+	public final int kind;
+
+	/**
+	 * The index scheme that was used to encode the states of this table.
+	 */
+	public final int scheme;
+
+	/**
+	 * The metric the distances in this table are measured in.
+	 */
+	public final Metric metric;
+
+	/**
+	 * The edges of an edge table, or null for a corner table and for an
+	 * edge table from a version 2 file, which didn't record them.
+	 */
+	public final EdgeSubset edges;
+
+	/**
+	 * The number of entries in this table.
+	 */
+	public final long size;
+
+	/**
+	 * The packed entries, SEGMENT_SIZE bytes per buffer. These are either heap
+	 * buffers while a table is being generated or read-only mapped buffers
+	 * once it has been loaded from disk.
+	 */
+	private final ByteBuffer[] data;
+
+	/**
+	 * The checksum from the header of the file the table was loaded from,
+	 * or -1 for a table built in memory.
+	 */
+	private final long checksum;
+
+	/**
+	 * Initializes an empty in-memory table where every entry is 0.
+	 * @param kind the table kind
+	 * @param scheme the index scheme
+	 * @param metric the metric the distances are measured in
+	 * @param size the number of entries
+	 */
+	public PatternDatabase(int kind, int scheme, Metric metric, int size) {
+		this(kind, scheme, metric, null, size, allocate(size), -1);
+	}
+
+	/**
+	 * Initializes an empty in-memory edge table where every entry is 0.
+	 * @param edges the edges the table tracks
+	 * @param metric the metric the distances are measured in
+	 */
+	public PatternDatabase(EdgeSubset edges, Metric metric) {
+		this(KIND_EDGES, SCHEME_DENSE_FULL, metric, edges, edges.size, allocate(edges.size), -1);
+	}
+
+	private PatternDatabase(int kind, int scheme, Metric metric, EdgeSubset edges, long size, ByteBuffer[] data,
+			long checksum) {
+		this.kind = kind;
+		this.scheme = scheme;
+		this.metric = metric;
+		this.edges = edges;
+		this.size = size;
+		this.data = data;
+		this.checksum = checksum;
+	}
+
+	/**
+	 * Looks up the value of an entry.
+	 * @param index the index of the entry
+	 * @return the value of the entry
+	 */
+	public int get(int index) {
+		int b = this.data[0].get(index >>> 1);
+		return (b >>> ((index & 1) << 2)) & MAX_VALUE;
+	}
+
+	/**
+	 * Looks up the value of an entry of a table that may have more than 2^31 entries.
+	 * @param index the index of the entry
+	 * @return the value of the entry
+	 */
+	public int get(long index) {
+		long offset = index >>> 1;
+		int b = this.data[(int) (offset / SEGMENT_SIZE)].get((int) (offset % SEGMENT_SIZE));
+		return (b >>> (((int) index & 1) << 2)) & MAX_VALUE;
+	}
+
+	/**
+	 * Sets the value of an entry. Values that do not fit in an entry are
+	 * clamped to MAX_VALUE.
+	 * @param index the index of the entry
+	 * @param value the value of the entry
+	 */
+	public void set(long index, int value) {
+		if (value > MAX_VALUE) {
+			value = MAX_VALUE;
+		}
+		long offset = index >>> 1;
+		ByteBuffer segment = this.data[(int) (offset / SEGMENT_SIZE)];
+		int position = (int) (offset % SEGMENT_SIZE);
+		int shift = ((int) index & 1) << 2;
+		int b = segment.get(position);
+		b = (b & ~(MAX_VALUE << shift)) | (value << shift);
+		segment.put(position, (byte) b);
+	}
+
+	/**
+	 * @return the number of bytes the entries take up
+	 */
+	public long bytes() {
+		return packedLength(this.size);
+	}
+
+	/**
+	 * Writes this table to a file in the binary PDB format.
+	 * @param fileName the name of the file to write to
+	 */
+	public void save(String fileName) {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		header.putInt(0, MAGIC);
+		header.putShort(4, (short) VERSION);
+		header.put(6, (byte) this.kind);
+		header.put(7, (byte) this.scheme);
+		header.put(8, (byte) ENTRY_BITS);
+		header.put(9, (byte) this.metric.ordinal());
+		header.putShort(10, (short) (this.edges == null ? 0 : this.edges.mask));
+		header.putLong(16, checksum(this.data));
+		header.putLong(24, this.size);
+		FileOutputStream file = null;
+		try {
+			file = new FileOutputStream(fileName);
+			FileChannel channel = file.getChannel();
+			channel.write(header);
+			for (ByteBuffer segment : this.data) {
+				ByteBuffer entries = segment.duplicate();
+				entries.clear();
+				while (entries.hasRemaining()) {
+					channel.write(entries);
+				}
+			}
+		} catch (FileNotFoundException e) {
+			throw new RuntimeException("File not found");
+		} catch (IOException e) {
+			throw new RuntimeException("IO error occurred");
+		} finally {
+			if (file != null) {
+				try {
+					file.close();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Memory-maps a table from a file in the binary PDB format and verifies
+	 * that it is the kind of table the caller expects.
+	 * @param fileName the name of the file to read from
+	 * @param kind the expected table kind
+	 * @param scheme the expected index scheme
+	 * @return the loaded table
+	 */
+	public static PatternDatabase load(String fileName, int kind, int scheme) {
+		PatternDatabase pdb = load(fileName);
+		if (pdb.kind != kind || pdb.scheme != scheme) {
+			throw new RuntimeException(fileName + " holds a different kind of table, please regenerate it");
+		}
+		return pdb;
+	}
+
+	/**
+	 * Memory-maps a table from a file in the binary PDB format.
+	 * @param fileName the name of the file to read from
+	 * @return the loaded table
+	 */
+	public static PatternDatabase load(String fileName) {
+		RandomAccessFile file = null;
+		try {
+			file = new RandomAccessFile(fileName, "r");
+			FileChannel channel = file.getChannel();
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			while (header.hasRemaining()) {
+				if (channel.read(header) < 0) {
+					throw new RuntimeException(fileName + " is not a PDB file");
+				}
+			}
+			if (header.getInt(0) != MAGIC) {
+				throw new RuntimeException(fileName + " is not a PDB file");
+			}
+			int version = header.getShort(4);
+			if (version < OLDEST_VERSION || version > VERSION) {
+				throw new RuntimeException(fileName + " has an unsupported PDB version, please regenerate it");
+			}
+			if (header.get(8) != ENTRY_BITS) {
+				throw new RuntimeException(fileName + " has an unsupported entry width");
+			}
+			int metric = header.get(9);
+			if (metric < 0 || metric >= Metric.values().length) {
+				throw new RuntimeException(fileName + " has an unknown metric");
+			}
+			long size = version == OLDEST_VERSION ? header.getInt(12) : header.getLong(24);
+			long length = packedLength(size);
+			if (channel.size() != HEADER_SIZE + length) {
+				throw new RuntimeException(fileName + " is truncated");
+			}
+			// The mappings stay valid after the channel is closed
+			ByteBuffer[] data = new ByteBuffer[segments(length)];
+			for (int i = 0; i < data.length; i++) {
+				long offset = (long) i * SEGMENT_SIZE;
+				data[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + offset,
+						Math.min(SEGMENT_SIZE, length - offset));
+			}
+			int mask = header.getShort(10) & 0xFFFF;
+			EdgeSubset edges = mask == 0 ? null : new EdgeSubset(mask);
+			if (edges != null && edges.size != size) {
+				throw new RuntimeException(fileName + " has the wrong size for its edges");
+			}
+			PatternDatabase pdb = new PatternDatabase(header.get(6), header.get(7), Metric.values()[metric], edges, size,
+					data, header.getLong(16));
+			if (Boolean.getBoolean(VERIFY_PROPERTY) && !pdb.verify()) {
+				throw new RuntimeException(fileName + " is corrupt, its checksum does not match");
+			}
+			return pdb;
+		} catch (FileNotFoundException e) {
+			throw new RuntimeException("File not found");
+		} catch (IOException e) {
+			throw new RuntimeException("IO error occurred");
+		} finally {
+			if (file != null) {
+				try {
+					file.close();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Checks the entries against the checksum of the file the table was
+	 * loaded from. This reads the whole table from disk.
+	 * @return true if they match, or if the table was built in memory
+	 */
+	public boolean verify() {
+		return this.checksum < 0 || checksum(this.data) == this.checksum;
+	}
+
+	/**
+	 * Calculates the number of bytes needed to pack the given amount of entries.
+	 * @param size the number of entries
+	 * @return the number of bytes
+	 */
+	private static long packedLength(long size) {
+		return (size * ENTRY_BITS + 7) / 8;
+	}
+
+	/**
+	 * Calculates the number of segments needed to hold the given amount of bytes.
+	 * @param length the number of bytes
+	 * @return the number of segments, at least one
+	 */
+	private static int segments(long length) {
+		return (int) Math.max(1, (length + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+	}
+
+	/**
+	 * Allocates the heap buffers of an empty table.
+	 * @param size the number of entries
+	 * @return the buffers
+	 */
+	private static ByteBuffer[] allocate(long size) {
+		long length = packedLength(size);
+		ByteBuffer[] data = new ByteBuffer[segments(length)];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = ByteBuffer.allocate((int) Math.min(SEGMENT_SIZE, length - (long) i * SEGMENT_SIZE));
+		}
+		return data;
+	}
+
+	/**
+	 * Calculates the CRC32 checksum of the packed entries.
+	 * @param data the packed entries
+	 * @return the checksum
+	 */
+	private static long checksum(ByteBuffer[] data) {
+		CRC32 crc = new CRC32();
+		for (ByteBuffer segment : data) {
+			ByteBuffer entries = segment.duplicate();
+			entries.clear();
+			crc.update(entries);
+		}
+		return crc.getValue();
+	}
+}
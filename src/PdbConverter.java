@@ -0,0 +1,87 @@
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
+
+/**
+ * Converts the heuristic tables from the old CSV format, as produced by
+ * piping CornerHeuristics/EdgeHeuristics into a file, into the binary
+ * PDB format. The converted tables keep the old decimal index scheme,
+ * so they can be archived and inspected but IDAStar only accepts
+ * tables generated with the current index scheme.
+ *
+ * They can't be ranked into the current scheme: the old encoding only
+ * held the positions of the cubies, not their orientations, the edge
+ * positions 10 and 11 took two digits so an edge index can stand for
+ * several states, and the distances counted clockwise quarter turns only,
+ * which overestimates the distance in either metric.
+ */
+public class PdbConverter {
+
+	/**
+	 * The number of entries in an old corner table. Every encoding built by
+	 * the old decimal corner encoding is below this number.
+	 */
+	public final static int LEGACY_CORNERS_SIZE = 88179840;
+
+	/**
+	 * The number of entries in an old edge table. Every six digit encoding
+	 * built by the old decimal edge encoding is below this number.
+	 */
+	public final static int LEGACY_EDGES_SIZE = 42577920;
+
+	/**
+	 * Reads a CSV heuristic table into a PatternDatabase.
+	 * @param fileName the name of the CSV file to read from
+	 * @param kind the table kind, either PatternDatabase.KIND_CORNERS or KIND_EDGES
+	 * @return the table
+	 */
+	public static PatternDatabase convert(String fileName, int kind) {
+		int size = kind == PatternDatabase.KIND_CORNERS ? LEGACY_CORNERS_SIZE : LEGACY_EDGES_SIZE;
+		// The old tables only counted clockwise quarter turns
+		PatternDatabase pdb = new PatternDatabase(kind, PatternDatabase.SCHEME_LEGACY_DECIMAL,
+				Metric.QUARTER_TURN, size);
+		FileReader file = null;
+		String line;
+		try {
+			file = new FileReader(fileName);
+			BufferedReader reader = new BufferedReader(file);
+			while ((line = reader.readLine()) != null) {
+				// For each line, split by the comma
+				int comma = line.indexOf(',');
+				// The first column is the encoded state and
+				// the second column is the calculated heuristic
+				if (comma > 0 && comma < line.length() - 1) {
+					pdb.set(Integer.parseInt(line.substring(0, comma)), Integer.parseInt(line.substring(comma + 1)));
+				}
+			}
+		} catch (FileNotFoundException e) {
+			throw new RuntimeException("File not found");
+		} catch (IOException e) {
+			throw new RuntimeException("IO error occurred");
+		} finally {
+			if (file != null) {
+				try {
+					file.close();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+		return pdb;
+	}
+
+	/**
+	 * Converts a CSV file given as the first argument into the PDB file given
+	 * as the second argument. The third argument is either "corners" or "edges".
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		if (args.length < 3) {
+			System.err.println("Usage: java PdbConverter <csv file> <pdb file> corners|edges");
+			return;
+		}
+		int kind = args[2].equals("corners") ? PatternDatabase.KIND_CORNERS : PatternDatabase.KIND_EDGES;
+		PdbConverter.convert(args[0], kind).save(args[1]);
+	}
+}
@@ -0,0 +1,224 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Generates a pattern database with a breadth-first search that works on
+ * the table itself instead of a queue.
+ *
+ * The search goes one depth at a time. Every entry starts out unvisited,
+ * then each level scans the whole index space on all cores:
+ *  - forward, while the level is small: every entry at depth d is turned
+ *    with each move through MoveTables and the unvisited entries it
+ *    reaches are set to d + 1
+ *  - backward, once fewer entries are unvisited than there are at depth d:
+ *    every unvisited entry that is one move away from depth d is set to
+ *    d + 1. The moves of a metric are closed under inverses, so this finds
+ *    the same entries while looking at far fewer of them.
+ * Entries are nibbles packed eight to an int and are set with a
+ * compare-and-set, so threads can share words without locking.
+ *
+ * A symmetry-reduced corner table is searched the same way: each entry
+ * stands for the representative of its class, which is turned and then
+ * reduced again. Edge tables can track any subset of the edges, see
+ * EdgeSubset. While it runs the search holds the table twice, once in
+ * the packed words it works on and once in the table it returns, so an
+ * 8 edge table needs a heap of about 5 GB.
+ */
+public class PdbGenerator {
+
+	/**
+	 * The value of an entry that hasn't been reached yet. It is also the
+	 * largest value an entry can hold, so entries the search stops short
+	 * of keep it, which is still a lower bound.
+	 */
+	private static final int UNVISITED = PatternDatabase.MAX_VALUE;
+
+	/**
+	 * Ranges of at most this many entries are scanned by one task.
+	 */
+	private static final int CHUNK = 1 << 16;
+
+	private final int scheme;
+	private final EdgeSubset edges;
+	private final Metric metric;
+	private final long size;
+	private final int[] moves;
+	private final ForkJoinPool pool;
+	private final AtomicIntegerArray depths;
+
+	/**
+	 * Initializes a generator for a corner table.
+	 * @param scheme the index scheme, PatternDatabase.SCHEME_DENSE_FULL or SCHEME_SYMMETRY_REDUCED
+	 * @param metric the metric the distances are measured in
+	 * @param pool the pool the levels are scanned on
+	 */
+	public PdbGenerator(int scheme, Metric metric, ForkJoinPool pool) {
+		this(scheme, null, cornerTableSize(scheme), metric, pool);
+	}
+
+	/**
+	 * Initializes a generator for an edge table.
+	 * @param edges the edges the table tracks
+	 * @param metric the metric the distances are measured in
+	 * @param pool the pool the levels are scanned on
+	 */
+	public PdbGenerator(EdgeSubset edges, Metric metric, ForkJoinPool pool) {
+		this(PatternDatabase.SCHEME_DENSE_FULL, edges, edges.size, metric, pool);
+	}
+
+	private PdbGenerator(int scheme, EdgeSubset edges, long size, Metric metric, ForkJoinPool pool) {
+		this.scheme = scheme;
+		this.edges = edges;
+		this.size = size;
+		this.metric = metric;
+		this.moves = metric.generators();
+		this.pool = pool;
+		this.depths = new AtomicIntegerArray((int) ((size + 7) >>> 3));
+	}
+
+	private static long cornerTableSize(int scheme) {
+		if (scheme == PatternDatabase.SCHEME_SYMMETRY_REDUCED) {
+			return Symmetry.CORNER_CLASSES * Cube.CORNER_ORIENTATIONS;
+		}
+		if (scheme != PatternDatabase.SCHEME_DENSE_FULL) {
+			throw new IllegalArgumentException("Unsupported index scheme " + scheme);
+		}
+		return Cube.CORNER_PERMUTATIONS * Cube.CORNER_ORIENTATIONS;
+	}
+
+	/**
+	 * Runs the search.
+	 * @param goal the index of the solved state, in the index scheme of the table
+	 * @param verbose true to print the number of entries found at every depth
+	 * @return the table
+	 */
+	public PatternDatabase generate(long goal, boolean verbose) {
+		for (int i = 0; i < this.depths.length(); i++) {
+			this.depths.set(i, -1);
+		}
+		mark(goal, 0);
+		long level = 1;
+		long unvisited = this.size - 1;
+		for (int depth = 0; level > 0 && depth + 1 < UNVISITED; depth++) {
+			long start = System.nanoTime();
+			boolean backward = unvisited < level;
+			level = this.pool.invoke(new Level(0, this.size, depth, backward));
+			unvisited -= level;
+			if (verbose) {
+				System.out.println("Depth " + (depth + 1) + ": " + level + " entries, "
+						+ (backward ? "backward" : "forward") + " scan, "
+						+ (System.nanoTime() - start) / 1000000 + " ms");
+			}
+		}
+		if (verbose && unvisited > 0) {
+			System.out.println(unvisited + " entries were not reached");
+		}
+
+		PatternDatabase table = this.edges != null
+				? new PatternDatabase(this.edges, this.metric)
+				: new PatternDatabase(PatternDatabase.KIND_CORNERS, this.scheme, this.metric, (int) this.size);
+		for (long i = 0; i < this.size; i++) {
+			table.set(i, entry(i));
+		}
+		return table;
+	}
+
+	/**
+	 * Scans a range of the table for one level of the search.
+	 */
+	private final class Level extends RecursiveTask<Long> {
+		private static final long serialVersionUID = 1L;
+
+		private final long from;
+		private final long to;
+		private final int depth;
+		private final boolean backward;
+
+		Level(long from, long to, int depth, boolean backward) {
+			this.from = from;
+			this.to = to;
+			this.depth = depth;
+			this.backward = backward;
+		}
+
+		@Override
+		protected Long compute() {
+			if (this.to - this.from > CHUNK) {
+				long middle = (this.from + this.to) >>> 1;
+				Level left = new Level(this.from, middle, this.depth, this.backward);
+				Level right = new Level(middle, this.to, this.depth, this.backward);
+				left.fork();
+				long found = right.compute();
+				return found + left.join();
+			}
+			return this.backward ? scanBackward() : scanForward();
+		}
+
+		private long scanForward() {
+			long found = 0;
+			for (long i = this.from; i < this.to; i++) {
+				if (entry(i) != this.depth) {
+					continue;
+				}
+				for (int move : moves) {
+					if (mark(turn(i, move), this.depth + 1)) {
+						found++;
+					}
+				}
+			}
+			return found;
+		}
+
+		private long scanBackward() {
+			long found = 0;
+			for (long i = this.from; i < this.to; i++) {
+				if (entry(i) != UNVISITED) {
+					continue;
+				}
+				for (int move : moves) {
+					if (entry(turn(i, move)) == this.depth) {
+						mark(i, this.depth + 1);
+						found++;
+						break;
+					}
+				}
+			}
+			return found;
+		}
+	}
+
+	private long turn(long index, int move) {
+		if (this.edges != null) {
+			return this.edges.move(index, move);
+		}
+		if (this.scheme == PatternDatabase.SCHEME_SYMMETRY_REDUCED) {
+			// Turn the representative, then reduce the result to its own class
+			return Symmetry.reduceCorners(MoveTables.moveCorners(Symmetry.expandCorners((int) index), move));
+		}
+		return MoveTables.moveCorners((int) index, move);
+	}
+
+	private int entry(long index) {
+		return (this.depths.get((int) (index >>> 3)) >>> (((int) index & 7) << 2)) & UNVISITED;
+	}
+
+	/**
+	 * Sets an entry if it hasn't been reached yet.
+	 * @return true if the entry was set by this call
+	 */
+	private boolean mark(long index, int depth) {
+		int word = (int) (index >>> 3);
+		int shift = ((int) index & 7) << 2;
+		while (true) {
+			int old = this.depths.get(word);
+			if (((old >>> shift) & UNVISITED) != UNVISITED) {
+				return false;
+			}
+			int updated = (old & ~(UNVISITED << shift)) | (depth << shift);
+			if (this.depths.compareAndSet(word, old, updated)) {
+				return true;
+			}
+		}
+	}
+}
@@ -0,0 +1,119 @@
+import java.util.SplittableRandom;
+
+/**
+ * Generates random cubes that can be solved, each one as likely as any
+ * other of the 43 quintillion.
+ *
+ * Instead of turning the faces at random, which takes many moves before
+ * the cube is well mixed, the cubies are shuffled directly: the corners
+ * and the edges get random permutations of the same parity, every corner
+ * but the last a random twist and every edge but the last a random flip,
+ * and the last corner and edge are oriented so that the twists add up to
+ * a multiple of three and the flips to an even number. Those are exactly
+ * the states that turning the faces can reach.
+ *
+ * A generator is not thread safe. Give every thread one of its own with
+ * split, which gives an independent stream of states.
+ */
+public class RandomStates {
+
+	private final SplittableRandom random;
+	private final int[] cubies = new int[12];
+
+	/**
+	 * Creates a generator with a seed of its own.
+	 */
+	public RandomStates() {
+		this(new SplittableRandom());
+	}
+
+	/**
+	 * Creates a generator that always generates the same states.
+	 * @param seed the seed
+	 */
+	public RandomStates(long seed) {
+		this(new SplittableRandom(seed));
+	}
+
+	private RandomStates(SplittableRandom random) {
+		this.random = random;
+	}
+
+	/**
+	 * @return a generator for another thread, whose states don't depend on this one's
+	 */
+	public RandomStates split() {
+		return new RandomStates(this.random.split());
+	}
+
+	/**
+	 * @return a random state that can be solved
+	 */
+	public CubeState next() {
+		int parity = shuffle(Cube.CORNERS.length);
+		long corners = 0;
+		int twists = 0;
+		for (int position = 0; position < Cube.CORNERS.length; position++) {
+			int twist = position < Cube.CORNERS.length - 1 ? this.random.nextInt(3) : (3 - twists % 3) % 3;
+			twists += twist;
+			corners |= (long) (this.cubies[position] | twist << 3) << (5 * position);
+		}
+		if (shuffle(Cube.EDGES.length) != parity) {
+			// Swapping two edges fixes the parity and keeps every permutation as likely
+			int swap = this.cubies[0];
+			this.cubies[0] = this.cubies[1];
+			this.cubies[1] = swap;
+		}
+		long edges = 0;
+		int flips = 0;
+		for (int position = 0; position < Cube.EDGES.length; position++) {
+			int flip = position < Cube.EDGES.length - 1 ? this.random.nextInt(2) : flips & 1;
+			flips += flip;
+			edges |= (long) (this.cubies[position] | flip << 4) << (5 * position);
+		}
+		return new CubeState(corners, edges);
+	}
+
+	/**
+	 * Turns the faces of the solved cube at random, never turning a face
+	 * twice in a row or opposite faces in both orders, see Move.allowed. The
+	 * optimal solution of the state is at most that long, and for short
+	 * scrambles usually exactly.
+	 * @param length the number of moves
+	 * @return the scrambled state
+	 */
+	public CubeState scramble(int length) {
+		CubeState state = CubeState.GOAL;
+		int previous = Move.NONE;
+		for (int i = 0; i < length; i++) {
+			int move;
+			do {
+				move = this.random.nextInt(Move.COUNT);
+			} while (!Move.allowed(previous, move));
+			state = state.move(move);
+			previous = move;
+		}
+		return state;
+	}
+
+	/**
+	 * Shuffles the first count cubies with Fisher-Yates.
+	 * @return the parity of the permutation, 0 if it is even
+	 */
+	private int shuffle(int count) {
+		for (int i = 0; i < count; i++) {
+			this.cubies[i] = i;
+		}
+		int parity = 0;
+		for (int i = count - 1; i > 0; i--) {
+			int j = this.random.nextInt(i + 1);
+			if (j != i) {
+				int swap = this.cubies[i];
+				this.cubies[i] = this.cubies[j];
+				this.cubies[j] = swap;
+				parity ^= 1;
+			}
+		}
+		return parity;
+	}
+}
@@ -0,0 +1,223 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Solves cubes for other processes on the same machine, so the tables are
+ * loaded once instead of by every process that wants a solution.
+ *
+ * The server listens on a port of the loopback address and speaks the
+ * line protocol of Batch: a client writes one state per line, written as
+ * the 54 stickers in the same order as Cube.GOAL, and gets one line of
+ * JSON per state back, in the same format and with the same statuses as
+ * Batch -format jsonl. The id of a result is the number of the line on
+ * its connection. Blank lines and lines starting with # are skipped. A
+ * connection solves one state at a time, so a client opens more
+ * connections to solve several at once, eg:
+ *   echo RRRRRRRRRGGGYYYBBBGGGYYYBBBGGGYYYBBBOOOOOOOOOWWWWWWWWW | nc localhost 8421
+ *
+ * Every connection is read on a thread of its own, which spends its life
+ * waiting for the client or for a solve. The solves run on a fixed pool
+ * of workers, one per core unless -threads says otherwise, so any number
+ * of clients can't load the machine more than that. When a state is asked
+ * for while it is being solved for another client, the second request
+ * waits for the same search instead of starting one, so a crowd of
+ * clients sending the same scramble costs one solve.
+ */
+public class Server {
+
+	/**
+	 * The port the server listens on unless -port says otherwise.
+	 */
+	public final static int DEFAULT_PORT = 8421;
+
+	private final Solver solver;
+	private final long limit;
+	private final long timeoutMillis;
+	private final ExecutorService workers;
+	private final ExecutorService connections;
+
+	/**
+	 * The searches that are queued or running, by the state they solve.
+	 */
+	private final ConcurrentHashMap<CubeState, FutureTask<Solution>> searches
+			= new ConcurrentHashMap<CubeState, FutureTask<Solution>>();
+
+	private final AtomicLong requests = new AtomicLong();
+	private final AtomicLong coalesced = new AtomicLong();
+
+	/**
+	 * @param solver the solver every search uses
+	 * @param threads the number of searches that run at the same time
+	 * @param limit the number of nodes a search may visit, or 0 for no limit
+	 * @param timeoutMillis the time a search may take, or 0 for no limit
+	 */
+	public Server(Solver solver, int threads, long limit, long timeoutMillis) {
+		this.solver = solver;
+		this.limit = limit;
+		this.timeoutMillis = timeoutMillis;
+		this.workers = Executors.newFixedThreadPool(threads);
+		this.connections = Executors.newCachedThreadPool();
+	}
+
+	/**
+	 * Solves a cube, or waits for the search that is already solving it.
+	 * @param state the state of the cube
+	 * @return the solution
+	 */
+	public Solution solve(final CubeState state) throws InterruptedException, ExecutionException {
+		this.requests.incrementAndGet();
+		FutureTask<Solution> search = new FutureTask<Solution>(new Callable<Solution>() {
+			@Override
+			public Solution call() {
+				return Server.this.solver.solve(state, Server.this.limit, Server.this.timeoutMillis);
+			}
+		}) {
+			@Override
+			protected void done() {
+				// Only now that the solution is published, later requests start a search of their own
+				Server.this.searches.remove(state, this);
+			}
+		};
+		FutureTask<Solution> running = this.searches.putIfAbsent(state, search);
+		if (running != null) {
+			this.coalesced.incrementAndGet();
+			return running.get();
+		}
+		this.workers.execute(search);
+		return search.get();
+	}
+
+	/**
+	 * @return the number of states that were asked for
+	 */
+	public long requests() {
+		return this.requests.get();
+	}
+
+	/**
+	 * @return the number of requests that waited for another request's search
+	 */
+	public long coalesced() {
+		return this.coalesced.get();
+	}
+
+	/**
+	 * Accepts connections until the socket is closed.
+	 * @param socket the socket to accept connections on
+	 */
+	public void serve(ServerSocket socket) throws IOException {
+		try {
+			while (true) {
+				final Socket connection = socket.accept();
+				this.connections.execute(new Runnable() {
+					@Override
+					public void run() {
+						handle(connection);
+					}
+				});
+			}
+		} finally {
+			this.connections.shutdownNow();
+			this.workers.shutdownNow();
+		}
+	}
+
+	/**
+	 * Answers the requests of one client until it closes the connection.
+	 */
+	private void handle(Socket connection) {
+		try {
+			BufferedReader in = new BufferedReader(
+					new InputStreamReader(connection.getInputStream(), StandardCharsets.US_ASCII));
+			PrintWriter out = new PrintWriter(
+					new OutputStreamWriter(connection.getOutputStream(), StandardCharsets.US_ASCII));
+			String line;
+			int lineNumber = 0;
+			while ((line = in.readLine()) != null) {
+				lineNumber++;
+				line = line.trim();
+				if (line.isEmpty() || line.startsWith("#")) {
+					continue;
+				}
+				char[] facelets = line.toCharArray();
+				CubeState state = CubeValidator.validate(facelets) == CubeValidator.Reason.VALID
+						? CubeState.of(facelets) : null;
+				String id = Integer.toString(lineNumber);
+				out.println(state == null ? Batch.format(id, line, null, true)
+						: Batch.format(id, state.toString(), solve(state), true));
+				out.flush();
+			}
+		} catch (IOException e) {
+			// The client went away, there is nobody left to answer
+		} catch (InterruptedException e) {
+			// The server is shutting down
+		} catch (ExecutionException e) {
+			e.printStackTrace();
+		} finally {
+			try {
+				connection.close();
+			} catch (IOException e) {
+				// Closed already
+			}
+		}
+	}
+
+	/**
+	 * Runs a server.
+	 * Usage: java Server [-port n] [-threads n] [-timeout seconds] [-limit nodes]
+	 *                    [-mode optimal|twophase] [-length moves]
+	 * The options mean the same as for Batch. The counts of the searches are
+	 * shown over JMX as rubikscube:type=Solver,name="server", see SolverMetrics.
+	 * @param args
+	 */
+	public static void main(String[] args) throws IOException {
+		int port = DEFAULT_PORT;
+		int threads = Runtime.getRuntime().availableProcessors();
+		long timeoutMillis = 0;
+		long limit = 0;
+		Solver.Mode mode = null;
+		int targetLength = 0;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-port") && i + 1 < args.length) {
+				port = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-threads") && i + 1 < args.length) {
+				threads = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-timeout") && i + 1 < args.length) {
+				timeoutMillis = (long) (Double.parseDouble(args[++i]) * 1000);
+			} else if (args[i].equals("-limit") && i + 1 < args.length) {
+				limit = Long.parseLong(args[++i]);
+			} else if (args[i].equals("-mode") && i + 1 < args.length) {
+				mode = Solver.Mode.parse(args[++i]);
+			} else if (args[i].equals("-length") && i + 1 < args.length) {
+				targetLength = Integer.parseInt(args[++i]);
+			} else {
+				throw new IllegalArgumentException("Unknown option " + args[i]);
+			}
+		}
+
+		// Load the tables before the first client connects
+		Solver solver = IDAStar.solver;
+		if (mode != null) {
+			solver = solver.withMode(mode, targetLength);
+		}
+		solver = solver.withMetrics(new SolverMetrics().register("server"));
+		Server server = new Server(solver, threads, limit, timeoutMillis);
+		ServerSocket socket = new ServerSocket(port, 0, InetAddress.getLoopbackAddress());
+		System.out.println("Solving on " + socket.getLocalSocketAddress() + " with " + threads + " threads");
+		server.serve(socket);
+	}
+}
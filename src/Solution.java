@@ -0,0 +1,138 @@
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The result of Solver.solve: the moves that solve the cube and what it
+ * took to find them. A Solution never changes once it is built, so it can
+ * be handed to other threads freely.
+ */
+public class Solution {
+
+	/**
+	 * What one iteration of IDA* did.
+	 */
+	public static class Iteration {
+
+		/**
+		 * The largest f value that was expanded in this iteration.
+		 */
+		public final int bound;
+
+		/**
+		 * The number of nodes visited in this iteration.
+		 */
+		public final long nodes;
+
+		/**
+		 * The wall-clock time this iteration took in nanoseconds.
+		 */
+		public final long nanos;
+
+		public Iteration(int bound, long nodes, long nanos) {
+			this.bound = bound;
+			this.nodes = nodes;
+			this.nanos = nanos;
+		}
+
+		@Override
+		public String toString() {
+			return "bound " + this.bound + ": " + this.nodes + " nodes, " + (this.nanos / 1000000) + " ms";
+		}
+	}
+
+	/**
+	 * False if the search gave up before it found a solution, in which case
+	 * there are no moves.
+	 */
+	public final boolean found;
+
+	/**
+	 * True if the search gave up because it ran out of time or was
+	 * cancelled rather than because it visited too many nodes.
+	 */
+	public final boolean timedOut;
+
+	/**
+	 * The cost of the moves in the metric of the solver.
+	 */
+	public final int cost;
+
+	/**
+	 * The cost no solution can be cheaper than, as far as the search proved
+	 * it: each iteration of IDA* that finishes without a solution proves
+	 * the bound of the next one. It is the cost of an optimal solution, and
+	 * 0 when nothing was proven, eg: in two-phase mode.
+	 */
+	public final int lowerBound;
+
+	/**
+	 * The total number of nodes visited.
+	 */
+	public final long nodes;
+
+	/**
+	 * The wall-clock time the search took in nanoseconds.
+	 */
+	public final long nanos;
+
+	/**
+	 * The iterations of the search, in order.
+	 */
+	public final List<Iteration> iterations;
+
+	private final byte[] moves;
+
+	public Solution(boolean found, boolean timedOut, byte[] moves, int cost, long nodes, long nanos,
+			List<Iteration> iterations) {
+		this(found, timedOut, moves, cost, 0, nodes, nanos, iterations);
+	}
+
+	public Solution(boolean found, boolean timedOut, byte[] moves, int cost, int lowerBound, long nodes, long nanos,
+			List<Iteration> iterations) {
+		this.found = found;
+		this.timedOut = timedOut;
+		this.moves = moves.clone();
+		this.cost = cost;
+		this.lowerBound = lowerBound;
+		this.nodes = nodes;
+		this.nanos = nanos;
+		this.iterations = Collections.unmodifiableList(iterations);
+	}
+
+	/**
+	 * @return true if the moves are proven to be an optimal solution
+	 */
+	public boolean optimal() {
+		return this.found && this.lowerBound >= this.cost;
+	}
+
+	/**
+	 * @return the number of moves in the solution
+	 */
+	public int length() {
+		return this.moves.length;
+	}
+
+	/**
+	 * @param i the index of the move
+	 * @return the move, as numbered by Move
+	 */
+	public int move(int i) {
+		return this.moves[i];
+	}
+
+	/**
+	 * @return a copy of the moves, as numbered by Move
+	 */
+	public byte[] moves() {
+		return this.moves.clone();
+	}
+
+	/**
+	 * @return the moves in our notation, eg: O1R3
+	 */
+	@Override
+	public String toString() {
+		return Move.toString(this.moves, this.moves.length);
+	}
+}
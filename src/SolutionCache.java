@@ -0,0 +1,356 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * The solutions of the cubes a solver solved before, so a cube that comes
+ * again is answered without a search, see Solver.withSolutionCache.
+ *
+ * A cube is found again even when its colours are painted differently or
+ * the whole cube is turned or mirrored: each of these is one of the 48
+ * conjugates of the cube by a Symmetry, which are all as far from solved,
+ * so the cache keeps one solution for all of them. A solution is stored
+ * for the smallest conjugate, as a CubeState, and turned back into moves
+ * for the cube that was asked for with Symmetry.conjugateMove.
+ *
+ * The cache takes at most a fixed amount of memory and drops the solution
+ * that was used least recently to make room. It can be written to a file
+ * and read back, so a restarted solver doesn't start cold, and counts its
+ * hits and misses, which can be read over JMX once it is registered.
+ *
+ * The file format is big-endian:
+ *   0  int   magic number, "RSOL" in ASCII
+ *   4  short version of the format
+ *   6  byte  metric the solutions are optimal in (the ordinal of Metric)
+ * followed by the solutions, least recently used first, each one the
+ * corners and edges of the smallest conjugate as two longs, the number of
+ * moves as a byte and the moves as bytes.
+ */
+public class SolutionCache implements SolutionCacheMXBean {
+
+	/**
+	 * The magic number at the start of every cache file, "RSOL" in ASCII.
+	 */
+	public final static int MAGIC = 0x52534F4C;
+
+	/**
+	 * The version of the file format written by this class.
+	 */
+	public final static int VERSION = 1;
+
+	/**
+	 * A rough size of a solution besides its moves: the CubeState, the
+	 * entry of the map and the header of the array of moves.
+	 */
+	private final static int ENTRY_BYTES = 96;
+
+	/**
+	 * The metric the solutions are optimal in.
+	 */
+	public final Metric metric;
+
+	private final long maxBytes;
+
+	/**
+	 * The moves that solve each smallest conjugate, least recently used first.
+	 */
+	private final LinkedHashMap<CubeState, byte[]> solutions = new LinkedHashMap<CubeState, byte[]>(16, 0.75f, true);
+
+	private long bytes;
+	private long hits;
+	private long misses;
+	private long stores;
+	private long evictions;
+
+	/**
+	 * @param metric the metric the solutions are optimal in
+	 * @param maxBytes the memory the solutions may take up
+	 */
+	public SolutionCache(Metric metric, long maxBytes) {
+		this.metric = metric;
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * Shows the counts over JMX as rubikscube:type=SolutionCache,name=name.
+	 * @param name tells the caches of one process apart, eg: the name of the config
+	 * @return the cache
+	 */
+	public SolutionCache register(String name) {
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this,
+					new ObjectName("rubikscube:type=SolutionCache,name=" + ObjectName.quote(name)));
+		} catch (JMException e) {
+			throw new RuntimeException("Could not register the cache of " + name, e);
+		}
+		return this;
+	}
+
+	/**
+	 * Looks up the solution of a cube or of one of its conjugates.
+	 * @param state the state of the cube
+	 * @return the moves that solve the cube, or null if there are none
+	 */
+	public byte[] get(CubeState state) {
+		int symmetry = smallestConjugate(state);
+		CubeState key = conjugate(state, symmetry);
+		byte[] moves;
+		synchronized (this) {
+			moves = this.solutions.get(key);
+			if (moves == null) {
+				this.misses++;
+				return null;
+			}
+			this.hits++;
+		}
+		// The moves solve the conjugate, undo the symmetry to solve the cube
+		return conjugateMoves(moves, Symmetry.INVERSE[symmetry]);
+	}
+
+	/**
+	 * Adds the solution of a cube, dropping the least recently used
+	 * solutions if there isn't room for it.
+	 * @param state the state of the cube
+	 * @param moves the moves that solve it, optimal in the metric of the cache
+	 */
+	public void put(CubeState state, byte[] moves) {
+		int symmetry = smallestConjugate(state);
+		add(conjugate(state, symmetry), conjugateMoves(moves, symmetry));
+	}
+
+	private synchronized void add(CubeState key, byte[] moves) {
+		insert(key, moves);
+		this.stores++;
+	}
+
+	private void insert(CubeState key, byte[] moves) {
+		byte[] old = this.solutions.put(key, moves);
+		this.bytes += old == null ? ENTRY_BYTES + moves.length : moves.length - old.length;
+		Iterator<byte[]> eldest = this.solutions.values().iterator();
+		while (this.bytes > this.maxBytes && eldest.hasNext()) {
+			this.bytes -= ENTRY_BYTES + eldest.next().length;
+			eldest.remove();
+			this.evictions++;
+		}
+	}
+
+	/**
+	 * Finds the conjugate that stands for every conjugate of a cube, the
+	 * one whose corners and then edges are smallest.
+	 * @param state the state of the cube
+	 * @return the symmetry that gives it
+	 */
+	private static int smallestConjugate(CubeState state) {
+		char[] facelets = state.toFacelets();
+		char[] conjugated = new char[facelets.length];
+		CubeState smallest = state;
+		int symmetry = 0;
+		for (int s = 1; s < Symmetry.COUNT; s++) {
+			Symmetry.conjugate(facelets, s, conjugated);
+			CubeState candidate = CubeState.of(conjugated);
+			int order = Long.compareUnsigned(candidate.corners, smallest.corners);
+			if (order < 0 || order == 0 && Long.compareUnsigned(candidate.edges, smallest.edges) < 0) {
+				smallest = candidate;
+				symmetry = s;
+			}
+		}
+		return symmetry;
+	}
+
+	private static CubeState conjugate(CubeState state, int symmetry) {
+		if (symmetry == 0) {
+			return state;
+		}
+		char[] conjugated = new char[Cube.GOAL.length()];
+		Symmetry.conjugate(state.toFacelets(), symmetry, conjugated);
+		return CubeState.of(conjugated);
+	}
+
+	private static byte[] conjugateMoves(byte[] moves, int symmetry) {
+		byte[] conjugated = new byte[moves.length];
+		for (int i = 0; i < moves.length; i++) {
+			conjugated[i] = (byte) Symmetry.conjugateMove(moves[i], symmetry);
+		}
+		return conjugated;
+	}
+
+	/**
+	 * Writes the solutions to a file, see the class comment for the format.
+	 * @param fileName the name of the file to write to
+	 */
+	public void save(String fileName) {
+		List<Map.Entry<CubeState, byte[]>> solutions;
+		synchronized (this) {
+			solutions = new ArrayList<Map.Entry<CubeState, byte[]>>(this.solutions.entrySet());
+		}
+		DataOutputStream out = null;
+		try {
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileName)));
+			out.writeInt(MAGIC);
+			out.writeShort(VERSION);
+			out.writeByte(this.metric.ordinal());
+			for (Map.Entry<CubeState, byte[]> solution : solutions) {
+				out.writeLong(solution.getKey().corners);
+				out.writeLong(solution.getKey().edges);
+				out.writeByte(solution.getValue().length);
+				out.write(solution.getValue());
+			}
+		} catch (IOException e) {
+			throw new RuntimeException("Could not write " + fileName, e);
+		} finally {
+			if (out != null) {
+				try {
+					out.close();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds the solutions of a file written by save. They are used less
+	 * recently than the ones already in the cache.
+	 * @param fileName the name of the file to read from
+	 * @return the number of solutions read
+	 */
+	public int load(String fileName) {
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(fileName)));
+			if (in.readInt() != MAGIC) {
+				throw new RuntimeException(fileName + " is not a solution cache");
+			}
+			if (in.readShort() != VERSION) {
+				throw new RuntimeException(fileName + " has an unsupported cache version");
+			}
+			if (in.readByte() != this.metric.ordinal()) {
+				throw new RuntimeException(fileName + " holds solutions in a different metric");
+			}
+			List<CubeState> keys = new ArrayList<CubeState>();
+			List<byte[]> moves = new ArrayList<byte[]>();
+			while (true) {
+				long corners;
+				try {
+					corners = in.readLong();
+				} catch (EOFException e) {
+					break;
+				}
+				keys.add(new CubeState(corners, in.readLong()));
+				byte[] solution = new byte[in.readUnsignedByte()];
+				in.readFully(solution);
+				moves.add(solution);
+			}
+			synchronized (this) {
+				// Put the solutions that are already here back on top
+				List<Map.Entry<CubeState, byte[]>> recent
+						= new ArrayList<Map.Entry<CubeState, byte[]>>(this.solutions.entrySet());
+				this.solutions.clear();
+				this.bytes = 0;
+				for (int i = 0; i < keys.size(); i++) {
+					insert(keys.get(i), moves.get(i));
+				}
+				for (Map.Entry<CubeState, byte[]> solution : recent) {
+					insert(solution.getKey(), solution.getValue());
+				}
+			}
+			return keys.size();
+		} catch (IOException e) {
+			throw new RuntimeException("Could not read " + fileName, e);
+		} finally {
+			if (in != null) {
+				try {
+					in.close();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Keeps the solutions in a file between runs: reads it now if it exists,
+	 * and writes it when the JVM shuts down.
+	 * @param fileName the file
+	 * @return the cache
+	 */
+	public SolutionCache persist(final String fileName) {
+		if (new File(fileName).exists()) {
+			load(fileName);
+		}
+		Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+			@Override
+			public void run() {
+				save(fileName);
+			}
+		}, "save " + fileName));
+		return this;
+	}
+
+	@Override
+	public synchronized long getHits() {
+		return this.hits;
+	}
+
+	@Override
+	public synchronized long getMisses() {
+		return this.misses;
+	}
+
+	@Override
+	public synchronized double getHitRate() {
+		long lookups = this.hits + this.misses;
+		return lookups > 0 ? (double) this.hits / lookups : 0;
+	}
+
+	@Override
+	public synchronized long getStores() {
+		return this.stores;
+	}
+
+	@Override
+	public synchronized long getEvictions() {
+		return this.evictions;
+	}
+
+	@Override
+	public synchronized int getEntries() {
+		return this.solutions.size();
+	}
+
+	@Override
+	public synchronized long getBytes() {
+		return this.bytes;
+	}
+
+	@Override
+	public long getMaxBytes() {
+		return this.maxBytes;
+	}
+
+	@Override
+	public synchronized void clear() {
+		this.solutions.clear();
+		this.bytes = 0;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return this.solutions.size() + " solutions, " + this.hits + " hits, " + this.misses + " misses";
+	}
+}
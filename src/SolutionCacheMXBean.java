@@ -0,0 +1,51 @@
+/**
+ * What SolutionCache shows over JMX, eg: in jconsole or VisualVM under
+ * rubikscube:type=SolutionCache.
+ */
+public interface SolutionCacheMXBean {
+
+	/**
+	 * @return the number of lookups that found a solution
+	 */
+	long getHits();
+
+	/**
+	 * @return the number of lookups that found nothing
+	 */
+	long getMisses();
+
+	/**
+	 * @return the hits per lookup, or 0 before the first lookup
+	 */
+	double getHitRate();
+
+	/**
+	 * @return the number of solutions that were added
+	 */
+	long getStores();
+
+	/**
+	 * @return the number of solutions that were dropped to make room
+	 */
+	long getEvictions();
+
+	/**
+	 * @return the number of solutions in the cache
+	 */
+	int getEntries();
+
+	/**
+	 * @return the estimated memory the solutions take up, in bytes
+	 */
+	long getBytes();
+
+	/**
+	 * @return the memory the solutions may take up, in bytes
+	 */
+	long getMaxBytes();
+
+	/**
+	 * Drops every solution, but keeps counting.
+	 */
+	void clear();
+}
@@ -0,0 +1,978 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Solves cubes optimally with IDA*.
+ *
+ * A Solver holds nothing but its heuristic, its metric and an optional
+ * pool, so one instance with one copy of the pattern databases can be
+ * shared by any number of threads. Everything a search changes lives in
+ * objects that belong to a single call of solve.
+ *
+ * Without a pool the search runs on the calling thread. With a pool,
+ * every iteration first expands the tree up to SPLIT_DEPTH moves on the
+ * calling thread. The nodes it reaches are the roots of independent
+ * subtrees, which are searched with the same bound on the pool. Each task
+ * keeps its own path and node counter, so the workers share nothing but
+ * a stop flag, the node count and the place the solution is stored.
+ *
+ * The first worker to reach the goal stops the others. The solution is
+ * still optimal: the bound of an iteration is the smallest f value that
+ * went over the previous bound, so no solution is cheaper than the bound
+ * and every solution found within it costs exactly the bound.
+ *
+ * A solver can also be given a Frontier of the states around the goal.
+ * The search then stops as soon as it reaches the frontier, since the
+ * rest of the way is known, and raises the estimate of states the tables
+ * put within the frontier but that are not in it. This cuts the depth the
+ * search has to go to by the depth of the frontier.
+ *
+ * A solver can also be given a TranspositionTable. Every subtree the
+ * search fails to solve then leaves a lower bound on the distance of its
+ * root, which prunes the state when it is reached again by another path
+ * or in the next iteration. Only the nodes within the bound are looked up,
+ * the far more numerous ones the heuristic prunes are not.
+ *
+ * A solver can be given SolverMetrics, which count the nodes of every
+ * depth and every heuristic value, and report the progress of the
+ * searches that are running.
+ *
+ * A solver can be given a SolutionCache, which answers a cube that was
+ * solved before, or a recoloured, turned or mirrored copy of one, without
+ * searching.
+ *
+ * A solve can also be stopped at any time with a Cancellation. It then
+ * starts with a two-phase solution, tells a Listener about it and about
+ * every lower bound an iteration proves, and returns the best solution it
+ * knows with the bound it proved when it is stopped.
+ *
+ * In Mode.TWO_PHASE a solver does not search for an optimal solution at
+ * all but for a short one with TwoPhase, which takes milliseconds.
+ */
+public class Solver {
+
+	/**
+	 * How a solver searches.
+	 */
+	public enum Mode {
+		/**
+		 * IDA* with the pattern databases, which finds an optimal solution.
+		 */
+		OPTIMAL("optimal"),
+
+		/**
+		 * Kociemba's two-phase algorithm, which finds a short solution fast, see TwoPhase.
+		 */
+		TWO_PHASE("twophase");
+
+		/**
+		 * The short name used on the command line and in config files.
+		 */
+		public final String shortName;
+
+		Mode(String shortName) {
+			this.shortName = shortName;
+		}
+
+		/**
+		 * Finds a mode by its short name.
+		 * @param shortName optimal or twophase
+		 * @return the mode
+		 */
+		public static Mode parse(String shortName) {
+			for (Mode mode : values()) {
+				if (mode.shortName.equalsIgnoreCase(shortName)) {
+					return mode;
+				}
+			}
+			throw new IllegalArgumentException("Unknown mode " + shortName + ", use optimal or twophase");
+		}
+	}
+
+	/**
+	 * Gets told what a solve that can be stopped at any time knows so far,
+	 * see solve(CubeState, long, Cancellation, Listener).
+	 */
+	public interface Listener {
+		/**
+		 * Called when an iteration finished without a solution, which proves
+		 * that no solution is cheaper than the bound of the next one.
+		 * @param bound the cost no solution can be cheaper than
+		 * @param nodes the nodes visited since the solve started
+		 * @param nanos the time since the solve started, in nanoseconds
+		 */
+		void lowerBound(int bound, long nodes, long nanos);
+
+		/**
+		 * Called when a solution was found, which may not be optimal.
+		 * @param solution the solution, see Solution.optimal
+		 */
+		void solution(Solution solution);
+	}
+
+	/**
+	 * The number of moves expanded before the subtrees are handed out.
+	 * Three moves give a few thousand subtrees, plenty to keep every core
+	 * busy even though some subtrees are far bigger than others.
+	 */
+	public static final int SPLIT_DEPTH = 3;
+
+	/**
+	 * How many nodes a worker visits before it adds them to the shared
+	 * count and checks the node limit, the timeout and the cancellation.
+	 */
+	private static final int FLUSH_INTERVAL = 1 << 14;
+
+	/**
+	 * The value search() returns when it has found the goal or was stopped.
+	 */
+	private static final int STOPPED = -1;
+
+	private static final int GOAL_CORNERS = CubeState.GOAL.rankCorners();
+	private static final int GOAL_EDGES_SET_ONE = CubeState.GOAL.rankEdges(0);
+	private static final int GOAL_EDGES_SET_TWO = CubeState.GOAL.rankEdges(1);
+
+	/**
+	 * The heuristic used to prune the search.
+	 */
+	public final Heuristic heuristic;
+
+	/**
+	 * The metric solutions are optimal in.
+	 */
+	public final Metric metric;
+
+	/**
+	 * The pool subtrees are searched on, or null to search on the calling thread.
+	 */
+	private final ForkJoinPool pool;
+
+	/**
+	 * The states around the goal, or null to search all the way to the goal.
+	 */
+	private final Frontier frontier;
+
+	/**
+	 * The lower bounds proven by earlier searches, or null to keep none.
+	 */
+	public final TranspositionTable transpositions;
+
+	/**
+	 * What the searches count, or null to count nothing but their nodes.
+	 */
+	public final SolverMetrics metrics;
+
+	/**
+	 * The solutions of cubes solved before, or null to search every time.
+	 */
+	public final SolutionCache cache;
+
+	/**
+	 * How this solver searches.
+	 */
+	public final Mode mode;
+
+	/**
+	 * In Mode.TWO_PHASE, the length of solution that is short enough, or 0.
+	 */
+	private final int targetLength;
+
+	/**
+	 * Initializes a solver that prunes with the maximum of the three tables,
+	 * as per Korf's paper, and searches on the calling thread.
+	 * @param corners the corner table
+	 * @param edgesSetOne the table of the first set of edges
+	 * @param edgesSetTwo the table of the second set of edges
+	 */
+	public Solver(PatternDatabase corners, PatternDatabase edgesSetOne, PatternDatabase edgesSetTwo) {
+		this(corners, edgesSetOne, edgesSetTwo, null);
+	}
+
+	/**
+	 * Initializes a solver that prunes with the maximum of the three tables.
+	 * @param corners the corner table
+	 * @param edgesSetOne the table of the first set of edges
+	 * @param edgesSetTwo the table of the second set of edges
+	 * @param pool the pool subtrees are searched on, or null to search on the calling thread
+	 */
+	public Solver(PatternDatabase corners, PatternDatabase edgesSetOne, PatternDatabase edgesSetTwo,
+			ForkJoinPool pool) {
+		this(Heuristic.max(
+				Heuristic.corners("corners", corners),
+				Heuristic.edges("edgesSetOne", edgesSetOne, 0),
+				Heuristic.edges("edgesSetTwo", edgesSetTwo, 1)),
+				tableMetric(corners, edgesSetOne, edgesSetTwo), pool);
+	}
+
+	/**
+	 * Initializes a solver with any heuristic.
+	 * @param heuristic the heuristic used to prune the search
+	 * @param metric the metric the heuristic measures distances in
+	 * @param pool the pool subtrees are searched on, or null to search on the calling thread
+	 */
+	public Solver(Heuristic heuristic, Metric metric, ForkJoinPool pool) {
+		this(heuristic, metric, pool, null);
+	}
+
+	/**
+	 * Initializes a solver that meets the goal at a frontier. The first
+	 * solver of the JVM builds the tables of TwoPhase, which takes about
+	 * half a second, so that a deadline of the first solve isn't spent on
+	 * them.
+	 * @param heuristic the heuristic used to prune the search
+	 * @param metric the metric the heuristic measures distances in
+	 * @param pool the pool subtrees are searched on, or null to search on the calling thread
+	 * @param frontier the states around the goal, or null to search all the way to the goal
+	 */
+	public Solver(Heuristic heuristic, Metric metric, ForkJoinPool pool, Frontier frontier) {
+		this(heuristic, metric, pool, frontier, null, null, null, Mode.OPTIMAL, 0);
+		TwoPhase.init();
+	}
+
+	private Solver(Heuristic heuristic, Metric metric, ForkJoinPool pool, Frontier frontier,
+			TranspositionTable transpositions, SolverMetrics metrics, SolutionCache cache, Mode mode, int targetLength) {
+		if (frontier != null && frontier.metric != metric) {
+			throw new IllegalArgumentException("The frontier was built for a different metric");
+		}
+		if (transpositions != null && transpositions.metric != metric) {
+			throw new IllegalArgumentException("The transposition table holds bounds in a different metric");
+		}
+		if (cache != null && cache.metric != metric) {
+			throw new IllegalArgumentException("The cache holds solutions in a different metric");
+		}
+		this.heuristic = heuristic;
+		this.metric = metric;
+		this.pool = pool;
+		this.frontier = frontier;
+		this.transpositions = transpositions;
+		this.metrics = metrics;
+		this.cache = cache;
+		this.mode = mode;
+		this.targetLength = targetLength;
+	}
+
+	/**
+	 * Builds a solver that shares the tables of this one but searches in another mode.
+	 * @param mode how the solver searches
+	 * @param targetLength in Mode.TWO_PHASE, keep looking for shorter solutions
+	 *                     until one has at most this many moves or the time runs
+	 *                     out, or 0 to take the first solution when there is no
+	 *                     timeout. Ignored in Mode.OPTIMAL.
+	 * @return the solver
+	 */
+	public Solver withMode(Mode mode, int targetLength) {
+		return new Solver(this.heuristic, this.metric, this.pool, this.frontier, this.transpositions, this.metrics,
+				this.cache, mode, targetLength);
+	}
+
+	/**
+	 * Builds a solver that shares the tables of this one and keeps the lower
+	 * bounds it proves in a transposition table. The table may be shared by
+	 * any number of solvers of the same metric and outlives their searches.
+	 * @param transpositions the table, or null to keep no lower bounds
+	 * @return the solver
+	 * @throws IllegalArgumentException if the table is for a different metric
+	 */
+	public Solver withTranspositionTable(TranspositionTable transpositions) {
+		return new Solver(this.heuristic, this.metric, this.pool, this.frontier, transpositions, this.metrics,
+				this.cache, this.mode, this.targetLength);
+	}
+
+	/**
+	 * Builds a solver that shares the tables of this one and counts what its
+	 * searches do. The metrics may be shared by any number of solvers.
+	 * Solves in Mode.TWO_PHASE are not counted.
+	 * @param metrics the metrics, or null to count nothing
+	 * @return the solver
+	 */
+	public Solver withMetrics(SolverMetrics metrics) {
+		return new Solver(this.heuristic, this.metric, this.pool, this.frontier, this.transpositions, metrics,
+				this.cache, this.mode, this.targetLength);
+	}
+
+	/**
+	 * Builds a solver that shares the tables of this one and answers cubes
+	 * it solved before, or any recoloured, turned or mirrored copy of them,
+	 * from a cache. Only optimal solutions are added, and the cache isn't
+	 * used in Mode.TWO_PHASE. The cache may be shared by any number of
+	 * solvers of the same metric.
+	 * @param cache the cache, or null to search every time
+	 * @return the solver
+	 */
+	public Solver withSolutionCache(SolutionCache cache) {
+		return new Solver(this.heuristic, this.metric, this.pool, this.frontier, this.transpositions, this.metrics,
+				cache, this.mode, this.targetLength);
+	}
+
+	/**
+	 * Solves a cube without a node limit.
+	 * @param state the state of the cube
+	 * @return the solution
+	 */
+	public Solution solve(char[] state) {
+		return solve(state, 0);
+	}
+
+	/**
+	 * Solves a cube without a timeout.
+	 * @param state the state of the cube
+	 * @param limit the number of nodes to visit before giving up, or 0 for no limit
+	 * @return the solution, which is not found if the search gave up
+	 * @throws IllegalArgumentException if the state is not a valid cube
+	 */
+	public Solution solve(char[] state, long limit) {
+		return solve(state, limit, 0);
+	}
+
+	/**
+	 * Solves a cube.
+	 * @param state the state of the cube
+	 * @param limit the number of nodes to visit before giving up, or 0 for no limit
+	 * @param timeoutMillis the time to search before giving up, or 0 for no timeout.
+	 *                      In Mode.TWO_PHASE the best solution found so far is
+	 *                      returned when the time runs out.
+	 * @return the solution, which is not found if the search gave up
+	 * @throws IllegalArgumentException if the state is not a valid cube
+	 */
+	public Solution solve(char[] state, long limit, long timeoutMillis) {
+		validate(state);
+		if (this.mode == Mode.TWO_PHASE) {
+			return TwoPhase.solve(state, this.metric, this.targetLength, limit, timeoutMillis);
+		}
+		if (this.cache != null) {
+			return solve(CubeState.of(state), limit, timeoutMillis);
+		}
+		return solve(Cube.rankCorners(state), Cube.rankEdges(state, 0), Cube.rankEdges(state, 1), limit,
+				timeoutMillis, null, null, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Solves a packed cube.
+	 * @param state the state of the cube
+	 * @param limit the number of nodes to visit before giving up, or 0 for no limit
+	 * @param timeoutMillis the time to search before giving up, or 0 for no timeout
+	 * @return the solution, which is not found if the search gave up
+	 * @throws IllegalArgumentException if the state is not a valid cube
+	 */
+	public Solution solve(CubeState state, long limit, long timeoutMillis) {
+		char[] facelets = state.toFacelets();
+		validate(facelets);
+		if (this.mode == Mode.TWO_PHASE) {
+			return TwoPhase.solve(facelets, this.metric, this.targetLength, limit, timeoutMillis);
+		}
+		if (this.cache == null) {
+			return solve(state.rankCorners(), state.rankEdges(0), state.rankEdges(1), limit, timeoutMillis, null, null,
+					Integer.MAX_VALUE);
+		}
+		Solution cached = cached(state, System.nanoTime());
+		if (cached != null) {
+			return cached;
+		}
+		Solution solution = solve(state.rankCorners(), state.rankEdges(0), state.rankEdges(1), limit, timeoutMillis,
+				null, null, Integer.MAX_VALUE);
+		if (solution.found) {
+			this.cache.put(state, solution.moves());
+		}
+		return solution;
+	}
+
+	/**
+	 * Solves a packed cube optimally, unless it is stopped first, in which
+	 * case the best solution it knows is returned. It first finds a short
+	 * solution with TwoPhase, which takes milliseconds, then searches for an
+	 * optimal one with IDA*. Every iteration that finishes without a solution
+	 * proves a lower bound, and once the bound reaches the cost of the
+	 * two-phase solution that solution is optimal and the search stops.
+	 *
+	 * The two-phase solution is found even if the solve is stopped before,
+	 * so a solution always comes back. The tables of TwoPhase were built
+	 * with the solver, so this takes milliseconds from the first solve on,
+	 * and a deadline is kept from the start. The listener hears about the
+	 * two-phase solution and every lower bound as soon as they are known, on
+	 * the calling thread. The solver's mode is ignored.
+	 * @param state the state of the cube
+	 * @param limit the number of nodes to visit before giving up, or 0 for no limit
+	 * @param cancellation stops the solve, or null to solve until a solution is optimal
+	 * @param listener gets told what the solve knows so far, or null
+	 * @return the best solution found. If it is stopped, the solution is the
+	 *         two-phase one with the lower bound the search proved, see
+	 *         Solution.optimal.
+	 * @throws IllegalArgumentException if the state is not a valid cube
+	 */
+	public Solution solve(CubeState state, long limit, Cancellation cancellation, Listener listener) {
+		long start = System.nanoTime();
+		char[] facelets = state.toFacelets();
+		validate(facelets);
+		Solution cached = cached(state, start);
+		if (cached != null) {
+			if (listener != null) {
+				listener.solution(cached);
+			}
+			return cached;
+		}
+		// The first two-phase solution takes milliseconds, so it is found even when the time is short
+		Solution fallback = TwoPhase.solve(facelets, this.metric, 0, 0, 0);
+		if (fallback.found && listener != null) {
+			listener.solution(fallback);
+		}
+		Solution search = solve(state.rankCorners(), state.rankEdges(0), state.rankEdges(1), limit, 0, cancellation,
+				listener, fallback.found ? fallback.cost : Integer.MAX_VALUE);
+		long nodes = fallback.nodes + search.nodes;
+		Solution solution;
+		if (search.found || !fallback.found) {
+			solution = new Solution(search.found, search.timedOut, search.moves(), search.cost, search.lowerBound,
+					nodes, System.nanoTime() - start, search.iterations);
+		} else {
+			solution = new Solution(true, search.timedOut, fallback.moves(), fallback.cost,
+					Math.min(search.lowerBound, fallback.cost), nodes, System.nanoTime() - start, search.iterations);
+		}
+		if (solution.optimal()) {
+			if (this.cache != null) {
+				this.cache.put(state, solution.moves());
+			}
+			if (search.found && listener != null) {
+				listener.solution(solution);
+			}
+		}
+		return solution;
+	}
+
+	/**
+	 * Makes sure a cube can be solved before it is searched. A cube with a
+	 * twisted corner, a flipped edge or two swapped cubies still has
+	 * coordinates, since the last twist, flip and cubie are implied by the
+	 * others, and would be solved as if it were another cube.
+	 * @throws IllegalArgumentException if the state is not a valid cube
+	 */
+	private static void validate(char[] state) {
+		CubeValidator.Reason reason = CubeValidator.validate(state);
+		if (reason != CubeValidator.Reason.VALID) {
+			throw new IllegalArgumentException("This cube is not valid: " + reason.description);
+		}
+	}
+
+	/**
+	 * Looks a cube up in the cache, if there is one. The solution has one
+	 * iteration at its cost, like a search that found it right away.
+	 * @return the solution, or null if it isn't there
+	 */
+	private Solution cached(CubeState state, long start) {
+		byte[] moves = this.cache == null ? null : this.cache.get(state);
+		if (moves == null) {
+			return null;
+		}
+		int cost = cost(moves);
+		long nanos = System.nanoTime() - start;
+		List<Solution.Iteration> iterations = new ArrayList<Solution.Iteration>();
+		iterations.add(new Solution.Iteration(cost, 0, nanos));
+		return new Solution(true, false, moves, cost, cost, 0, nanos, iterations);
+	}
+
+	/**
+	 * Solves a cube given by its coordinates with IDA*.
+	 * @param upperBound the cost of a solution that is known, the search
+	 *                   stops without a solution once it proves that one
+	 *                   is optimal
+	 */
+	private Solution solve(int corners, int edgesSetOne, int edgesSetTwo, long limit, long timeoutMillis,
+			Cancellation cancellation, Listener listener, int upperBound) {
+		long start = System.nanoTime();
+		Subtree root = new Subtree(corners, edgesSetOne, edgesSetTwo, 0, Move.NONE, new byte[0]);
+		if (root.corners < 0 || root.edgesSetOne < 0 || root.edgesSetTwo < 0) {
+			throw new IllegalArgumentException("This cube is not valid");
+		}
+		long deadline = timeoutMillis > 0 ? start + timeoutMillis * 1000000 : 0;
+		Search search = new Search(this.heuristic, this.metric, this.frontier, this.transpositions, this.metrics,
+				start, limit, deadline, cancellation);
+		if (this.metrics != null) {
+			this.metrics.started();
+		}
+		List<Solution.Iteration> iterations = new ArrayList<Solution.Iteration>();
+		int bound = search.estimate(root.corners, root.edgesSetOne, root.edgesSetTwo);
+		if (listener != null) {
+			listener.lowerBound(bound, 0, System.nanoTime() - start);
+		}
+
+		// A known solution that costs the bound is optimal
+		while (bound < upperBound) {
+			long iterationStart = System.nanoTime();
+			long iterationNodes = search.visited();
+			search.iteration(bound, iterationStart, iterationNodes);
+			int next = iterate(search, root, bound);
+			iterations.add(new Solution.Iteration(bound, search.visited() - iterationNodes,
+					System.nanoTime() - iterationStart));
+			if (search.solution.get() != null || search.gaveUp) {
+				break;
+			}
+			// The next bound is the smallest f value that went over this bound
+			bound = next;
+			if (listener != null) {
+				listener.lowerBound(bound, search.visited(), System.nanoTime() - start);
+			}
+		}
+
+		byte[] moves = search.solution.get();
+		boolean found = moves != null;
+		if (!found) {
+			moves = new byte[0];
+		}
+		// The bound of every iteration that ran is proven, since the one before found nothing cheaper
+		Solution solution = new Solution(found, search.timedOut, moves, cost(moves), found ? cost(moves) : bound,
+				search.visited(), System.nanoTime() - start, iterations);
+		if (this.metrics != null) {
+			this.metrics.finished(solution);
+		}
+		return solution;
+	}
+
+	/**
+	 * @return the cost of the moves in the metric of this solver
+	 */
+	private int cost(byte[] moves) {
+		int cost = 0;
+		for (byte move : moves) {
+			cost += this.metric.cost(move);
+		}
+		return cost;
+	}
+
+	/**
+	 * Runs one iteration of IDA*.
+	 * @return the smallest f value that went over the bound
+	 */
+	private int iterate(Search search, Subtree root, int bound) {
+		if (this.pool == null) {
+			return new Worker(search, root, bound).run();
+		}
+		// Expand the first moves on this thread, which also finds solutions
+		// that are shorter than SPLIT_DEPTH
+		List<Subtree> subtrees = new ArrayList<Subtree>();
+		int min = search.split(root, bound, subtrees);
+		if (search.metrics != null) {
+			long nodes = 0;
+			for (long count : search.splitDepths) {
+				nodes += count;
+			}
+			search.count(nodes, search.splitDepths, search.splitEstimates);
+		}
+		if (search.solution.get() == null && !subtrees.isEmpty()) {
+			int t = this.pool.invoke(new SearchTask(search, subtrees, 0, subtrees.size(), bound));
+			if (t < min) {
+				min = t;
+			}
+		}
+		return min;
+	}
+
+	/**
+	 * Makes sure all of the tables were generated for the same metric.
+	 * @return the metric of the tables
+	 */
+	private static Metric tableMetric(PatternDatabase corners, PatternDatabase edgesSetOne,
+			PatternDatabase edgesSetTwo) {
+		if (edgesSetOne.metric != corners.metric || edgesSetTwo.metric != corners.metric) {
+			throw new RuntimeException("The heuristic tables were generated for different metrics, please regenerate them");
+		}
+		return corners.metric;
+	}
+
+
+	/**
+	 * The root of a subtree: the coordinates of a state and the moves that lead to it.
+	 */
+	private static final class Subtree {
+		final int corners;
+		final int edgesSetOne;
+		final int edgesSetTwo;
+		final int g;
+		final int previous;
+		final byte[] moves;
+
+		Subtree(int corners, int edgesSetOne, int edgesSetTwo, int g, int previous, byte[] moves) {
+			this.corners = corners;
+			this.edgesSetOne = edgesSetOne;
+			this.edgesSetTwo = edgesSetTwo;
+			this.g = g;
+			this.previous = previous;
+			this.moves = moves;
+		}
+	}
+
+	/**
+	 * What the workers of one search share.
+	 */
+	private static final class Search {
+		final Heuristic heuristic;
+		final Metric metric;
+		final Frontier frontier;
+		final TranspositionTable transpositions;
+		final SolverMetrics metrics;
+		final long start;
+		final long limit;
+		final long deadline;
+		final Cancellation cancellation;
+		final AtomicLong nodes = new AtomicLong();
+		final AtomicReference<byte[]> solution = new AtomicReference<byte[]>();
+
+		/**
+		 * Set once a solution was found, the node limit was hit or the time ran out.
+		 * Workers check it at every node, which is cheap since it rarely changes.
+		 */
+		volatile boolean stopped;
+		volatile boolean gaveUp;
+		volatile boolean timedOut;
+
+		/**
+		 * The lookups of each table per estimate, see Heuristic.lookups, and
+		 * the counts of the nodes split() visits, only with metrics.
+		 */
+		final Map<String, Integer> lookups;
+		final long[] splitDepths;
+		final long[] splitEstimates;
+
+		/**
+		 * The iteration that is running, for the progress reports.
+		 */
+		volatile int bound;
+		volatile long iterationStart;
+		volatile long iterationNodes;
+		final AtomicLong nextProgress = new AtomicLong();
+
+		Search(Heuristic heuristic, Metric metric, Frontier frontier, TranspositionTable transpositions,
+				SolverMetrics metrics, long start, long limit, long deadline, Cancellation cancellation) {
+			this.heuristic = heuristic;
+			this.metric = metric;
+			this.frontier = frontier;
+			this.transpositions = transpositions;
+			this.metrics = metrics;
+			this.start = start;
+			this.limit = limit;
+			this.deadline = deadline;
+			this.cancellation = cancellation;
+			this.lookups = metrics != null ? heuristic.lookups() : null;
+			this.splitDepths = metrics != null ? new long[SolverMetrics.MAX_DEPTH] : null;
+			this.splitEstimates = metrics != null ? new long[SolverMetrics.MAX_DEPTH] : null;
+			if (metrics != null) {
+				this.nextProgress.set(start + metrics.intervalNanos());
+			}
+		}
+
+		/**
+		 * Starts an iteration.
+		 */
+		void iteration(int bound, long start, long nodes) {
+			this.bound = bound;
+			this.iterationStart = start;
+			this.iterationNodes = nodes;
+		}
+
+		long visited() {
+			return this.nodes.get();
+		}
+
+		/**
+		 * Estimates the distance of a state. The frontier is only looked up
+		 * when the heuristic puts the state within it, and then gives the
+		 * exact distance, or one more than its depth if the state isn't in it.
+		 */
+		int estimate(int corners, int edgesSetOne, int edgesSetTwo) {
+			int h = this.heuristic.estimate(corners, edgesSetOne, edgesSetTwo);
+			if (this.frontier == null || h > this.frontier.depth) {
+				return h;
+			}
+			int distance = this.frontier.distance(corners, edgesSetOne, edgesSetTwo);
+			return distance >= 0 ? distance : this.frontier.depth + 1;
+		}
+
+		/**
+		 * Tells whether a state that was estimated at h is the goal or, with a
+		 * frontier, in the frontier, which means the rest of the way is known.
+		 */
+		boolean reached(int corners, int edgesSetOne, int edgesSetTwo, int h) {
+			if (this.frontier != null) {
+				return h <= this.frontier.depth;
+			}
+			return corners == GOAL_CORNERS && edgesSetOne == GOAL_EDGES_SET_ONE && edgesSetTwo == GOAL_EDGES_SET_TWO;
+		}
+
+		/**
+		 * The moves from a state that was reached to the goal.
+		 */
+		byte[] rest(int corners, int edgesSetOne, int edgesSetTwo) {
+			return this.frontier == null ? new byte[0] : this.frontier.path(corners, edgesSetOne, edgesSetTwo);
+		}
+
+		/**
+		 * Adds nodes to the shared count and stops the search if it went over
+		 * the limit, the deadline has passed or it was cancelled.
+		 */
+		void flush(long count) {
+			if (this.nodes.addAndGet(count) > this.limit && this.limit > 0) {
+				this.gaveUp = true;
+				this.stopped = true;
+			}
+			if ((this.deadline != 0 && System.nanoTime() - this.deadline > 0)
+					|| (this.cancellation != null && this.cancellation.isCancelled())) {
+				this.timedOut = true;
+				this.gaveUp = true;
+				this.stopped = true;
+			}
+			if (this.metrics != null && this.metrics.reportsProgress()) {
+				progress();
+			}
+		}
+
+		/**
+		 * Reports the progress to the listener of the metrics, unless another
+		 * worker did less than an interval ago.
+		 */
+		private void progress() {
+			long now = System.nanoTime();
+			long next = this.nextProgress.get();
+			if (now - next >= 0 && this.nextProgress.compareAndSet(next, now + this.metrics.intervalNanos())) {
+				long nodes = this.nodes.get();
+				this.metrics.progress(new SolverMetrics.Progress(this.bound, nodes, nodes - this.iterationNodes,
+						now - this.start, now - this.iterationStart));
+			}
+		}
+
+		/**
+		 * Adds the counts of a worker to the metrics.
+		 */
+		void count(long nodes, long[] depths, long[] estimates) {
+			this.metrics.count(nodes, depths, estimates, this.lookups);
+		}
+
+		/**
+		 * Counts a node in the metrics, if there are any.
+		 */
+		static void countNode(long[] depths, long[] estimates, int depth, int h) {
+			if (depths != null) {
+				depths[Math.min(depth, SolverMetrics.MAX_DEPTH - 1)]++;
+				estimates[Math.min(h, SolverMetrics.MAX_DEPTH - 1)]++;
+			}
+		}
+
+		/**
+		 * Records a solution unless another worker got there first, and stops the search.
+		 */
+		void solved(byte[] moves) {
+			this.solution.compareAndSet(null, moves);
+			this.stopped = true;
+		}
+
+		/**
+		 * Expands the tree up to SPLIT_DEPTH moves and collects the subtrees
+		 * whose roots are within the bound.
+		 * @return the smallest f value that went over the bound
+		 */
+		int split(Subtree node, int bound, List<Subtree> subtrees) {
+			flush(1);
+			int h = estimate(node.corners, node.edgesSetOne, node.edgesSetTwo);
+			countNode(this.splitDepths, this.splitEstimates, node.moves.length, h);
+			int f = node.g + h;
+			if (f > bound) {
+				return f;
+			}
+			if (reached(node.corners, node.edgesSetOne, node.edgesSetTwo, h)) {
+				byte[] rest = rest(node.corners, node.edgesSetOne, node.edgesSetTwo);
+				byte[] moves = Arrays.copyOf(node.moves, node.moves.length + rest.length);
+				System.arraycopy(rest, 0, moves, node.moves.length, rest.length);
+				solved(moves);
+				return STOPPED;
+			}
+			int min = Integer.MAX_VALUE;
+			for (int move = 0; move < Move.COUNT; move++) {
+				if (!Move.allowed(node.previous, move)) {
+					continue;
+				}
+				byte[] moves = Arrays.copyOf(node.moves, node.moves.length + 1);
+				moves[node.moves.length] = (byte) move;
+				Subtree child = new Subtree(MoveTables.moveCorners(node.corners, move),
+						MoveTables.moveEdges(node.edgesSetOne, move),
+						MoveTables.moveEdges(node.edgesSetTwo, move),
+						node.g + this.metric.cost(move), move, moves);
+				if (moves.length == SPLIT_DEPTH) {
+					subtrees.add(child);
+					continue;
+				}
+				int t = split(child, bound, subtrees);
+				if (t == STOPPED) {
+					return t;
+				}
+				if (t < min) {
+					min = t;
+				}
+			}
+			return min;
+		}
+	}
+
+	/**
+	 * Searches a range of subtrees, splitting the range in half until it
+	 * holds a single subtree so idle workers can steal the other half.
+	 */
+	private static final class SearchTask extends RecursiveTask<Integer> {
+		private static final long serialVersionUID = 1L;
+
+		private final Search search;
+		private final List<Subtree> subtrees;
+		private final int from;
+		private final int to;
+		private final int bound;
+
+		SearchTask(Search search, List<Subtree> subtrees, int from, int to, int bound) {
+			this.search = search;
+			this.subtrees = subtrees;
+			this.from = from;
+			this.to = to;
+			this.bound = bound;
+		}
+
+		@Override
+		protected Integer compute() {
+			if (this.to - this.from > 1) {
+				int middle = (this.from + this.to) >>> 1;
+				SearchTask left = new SearchTask(this.search, this.subtrees, this.from, middle, this.bound);
+				SearchTask right = new SearchTask(this.search, this.subtrees, middle, this.to, this.bound);
+				left.fork();
+				int t = right.compute();
+				return Math.min(t, left.join());
+			}
+			if (this.search.stopped) {
+				return Integer.MAX_VALUE;
+			}
+			return new Worker(this.search, this.subtrees.get(this.from), this.bound).run();
+		}
+	}
+
+	/**
+	 * The depth-first search of one subtree. A worker owns its path and its
+	 * counters, so nothing is shared while it searches but the stop flag and
+	 * the transposition table.
+	 */
+	private static final class Worker {
+		private final Search search;
+		private final Subtree root;
+		private final int bound;
+		private final int[] cornerPath;
+		private final int[] edgesSetOnePath;
+		private final int[] edgesSetTwoPath;
+		private final byte[] path;
+		private final TranspositionTable transpositions;
+		private final long[] depths;
+		private final long[] estimates;
+		private long nodes;
+		private long hits;
+		private long misses;
+		private long stores;
+		private long evictions;
+
+		Worker(Search search, Subtree root, int bound) {
+			this.search = search;
+			this.root = root;
+			this.bound = bound;
+			// Every move costs at least one, so the path can't be longer than the bound
+			int depth = Math.max(bound - root.g, 0);
+			this.cornerPath = new int[depth + 2];
+			this.edgesSetOnePath = new int[depth + 2];
+			this.edgesSetTwoPath = new int[depth + 2];
+			this.path = new byte[depth + 1];
+			this.transpositions = search.transpositions;
+			this.depths = search.metrics != null ? new long[SolverMetrics.MAX_DEPTH] : null;
+			this.estimates = search.metrics != null ? new long[SolverMetrics.MAX_DEPTH] : null;
+		}
+
+		int run() {
+			this.cornerPath[0] = this.root.corners;
+			this.edgesSetOnePath[0] = this.root.edgesSetOne;
+			this.edgesSetTwoPath[0] = this.root.edgesSetTwo;
+			int t = search(0, this.root.g, this.root.previous);
+			flush();
+			return t == STOPPED ? Integer.MAX_VALUE : t;
+		}
+
+		private void flush() {
+			if (this.depths != null) {
+				this.search.count(this.nodes, this.depths, this.estimates);
+			}
+			this.search.flush(this.nodes);
+			this.nodes = 0;
+			if (this.transpositions != null) {
+				this.transpositions.count(this.hits, this.misses, this.stores, this.evictions);
+				this.hits = 0;
+				this.misses = 0;
+				this.stores = 0;
+				this.evictions = 0;
+			}
+		}
+
+		private int search(int depth, int g, int previous) {
+			if (++this.nodes == FLUSH_INTERVAL) {
+				flush();
+			}
+			if (this.search.stopped) {
+				return STOPPED;
+			}
+			int corners = this.cornerPath[depth];
+			int edgesOne = this.edgesSetOnePath[depth];
+			int edgesTwo = this.edgesSetTwoPath[depth];
+			int h = this.search.estimate(corners, edgesOne, edgesTwo);
+			Search.countNode(this.depths, this.estimates, this.root.moves.length + depth, h);
+			int f = g + h;
+			if (f > this.bound) {
+				return f;
+			}
+			if (this.transpositions != null) {
+				int lowerBound = this.transpositions.lowerBound(corners, edgesOne, edgesTwo, previous);
+				if (lowerBound < 0) {
+					this.misses++;
+				} else {
+					this.hits++;
+					if (g + lowerBound > this.bound) {
+						return g + lowerBound;
+					}
+				}
+			}
+			if (this.search.reached(corners, edgesOne, edgesTwo, h)) {
+				byte[] rest = this.search.rest(corners, edgesOne, edgesTwo);
+				byte[] moves = Arrays.copyOf(this.root.moves, this.root.moves.length + depth + rest.length);
+				System.arraycopy(this.path, 0, moves, this.root.moves.length, depth);
+				System.arraycopy(rest, 0, moves, this.root.moves.length + depth, rest.length);
+				this.search.solved(moves);
+				return STOPPED;
+			}
+			int min = Integer.MAX_VALUE;
+			for (int move = 0; move < Move.COUNT; move++) {
+				if (!Move.allowed(previous, move)) {
+					continue;
+				}
+				this.cornerPath[depth + 1] = MoveTables.moveCorners(corners, move);
+				this.edgesSetOnePath[depth + 1] = MoveTables.moveEdges(edgesOne, move);
+				this.edgesSetTwoPath[depth + 1] = MoveTables.moveEdges(edgesTwo, move);
+				this.path[depth] = (byte) move;
+				int t = search(depth + 1, g + this.search.metric.cost(move), move);
+				if (t == STOPPED) {
+					return t;
+				}
+				if (t < min) {
+					min = t;
+				}
+			}
+			if (this.transpositions != null) {
+				// No path within the bound, so the smallest f that went over it bounds the distance
+				if (this.transpositions.store(corners, edgesOne, edgesTwo, previous, min - g)) {
+					this.evictions++;
+				}
+				this.stores++;
+			}
+			return min;
+		}
+	}
+}
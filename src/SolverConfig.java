@@ -0,0 +1,266 @@
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The pattern databases a solver prunes with, read from a properties file
+ * when the solver starts, eg:
+ *   corners = corners.pdb
+ *   edges = edgesSetOne.pdb edgesSetTwo.pdb edges0-6.pdb edges5-11.pdb
+ * The edge tables are separated by spaces and each one knows which edges
+ * it holds, so any number of tables of any subset of the edges can be
+ * used. Tables generated before edge subsets were recorded have to name
+ * their edges after a colon, eg: edgesSetOne.pdb:0-5.
+ *
+ * The solver prunes with the maximum of all the tables. It can also meet
+ * the goal at a Frontier of every state within a few moves of it, which
+ * is built when the config is loaded:
+ *   frontier.depth = 6
+ *   frontier.megabytes = 256
+ * The frontier is made shallower if it would take more memory than that.
+ * Without a depth there is no frontier.
+ *
+ * The solver can keep the lower bounds its searches prove in a
+ * TranspositionTable of a fixed size, which is shared by every search:
+ *   transpositions.megabytes = 64
+ * Without it there is no table.
+ *
+ * The solver can answer cubes it solved before from a SolutionCache of a
+ * fixed size, which is kept in a file between runs if one is named:
+ *   cache.megabytes = 16
+ *   cache.file = solutions.cache
+ * Without a size there is no cache. Its hits and misses are shown over
+ * JMX.
+ *
+ * The searches can be counted and the counts shown over JMX, see
+ * SolverMetrics:
+ *   metrics = true
+ *
+ * The solver is optimal unless the file asks for Kociemba's two-phase
+ * algorithm, optionally with the length that is short enough, see
+ * Solver.withMode:
+ *   mode = twophase
+ *   twophase.length = 20
+ *
+ * The file is solver.properties in the working directory, or the one
+ * named by the solver.config system property. Without it the solver uses
+ * corners.pdb, edgesSetOne.pdb and edgesSetTwo.pdb.
+ */
+public class SolverConfig {
+
+	/**
+	 * The file read by load() unless the solver.config system property names another.
+	 */
+	public final static String DEFAULT_FILE = "solver.properties";
+
+	/**
+	 * A short name used when printing results, the name of the file.
+	 */
+	public final String name;
+
+	/**
+	 * The corner table.
+	 */
+	public final PatternDatabase corners;
+
+	/**
+	 * The edge tables.
+	 */
+	public final List<PatternDatabase> edges;
+
+	/**
+	 * A heuristic for each table on its own, named after its file, with the corners first.
+	 */
+	public final List<Heuristic> tables;
+
+	/**
+	 * The maximum of all the tables.
+	 */
+	public final Heuristic heuristic;
+
+	/**
+	 * The metric all the tables were generated for.
+	 */
+	public final Metric metric;
+
+	/**
+	 * The states around the goal, or null to search all the way to the goal.
+	 */
+	public final Frontier frontier;
+
+	/**
+	 * The lower bounds the searches prove, or null to keep none.
+	 */
+	private TranspositionTable transpositions;
+
+	/**
+	 * What the searches count, or null to count nothing.
+	 */
+	private SolverMetrics metrics;
+
+	/**
+	 * The solutions of cubes solved before, or null to search every time.
+	 */
+	private SolutionCache cache;
+
+	/**
+	 * How the solver searches.
+	 */
+	private Solver.Mode mode = Solver.Mode.OPTIMAL;
+
+	/**
+	 * The length of solution that is short enough in Mode.TWO_PHASE.
+	 */
+	private int targetLength;
+
+	/**
+	 * Loads the tables.
+	 * @param name a short name used when printing results
+	 * @param corners the file of the corner table
+	 * @param edges the files of the edge tables, separated by spaces
+	 */
+	public SolverConfig(String name, String corners, String edges) {
+		this(name, corners, edges, 0, 0);
+	}
+
+	/**
+	 * Loads the tables and builds a frontier.
+	 * @param name a short name used when printing results
+	 * @param corners the file of the corner table
+	 * @param edges the files of the edge tables, separated by spaces
+	 * @param frontierDepth the depth of the frontier, or 0 for none
+	 * @param frontierBytes the most memory the frontier may take
+	 */
+	public SolverConfig(String name, String corners, String edges, int frontierDepth, long frontierBytes) {
+		this.name = name;
+		this.corners = PatternDatabase.load(corners);
+		ArrayList<PatternDatabase> edgeTables = new ArrayList<PatternDatabase>();
+		ArrayList<Heuristic> tables = new ArrayList<Heuristic>();
+		tables.add(Heuristic.corners(tableName(corners), this.corners));
+		for (String entry : edges.trim().split("\\s+")) {
+			int colon = entry.indexOf(':');
+			String fileName = colon < 0 ? entry : entry.substring(0, colon);
+			PatternDatabase table = PatternDatabase.load(fileName);
+			if (table.metric != this.corners.metric) {
+				throw new RuntimeException("The heuristic tables were generated for different metrics, please regenerate them");
+			}
+			edgeTables.add(table);
+			tables.add(colon < 0
+					? Heuristic.edges(tableName(fileName), table)
+					: Heuristic.edges(tableName(fileName), table, EdgeSubset.parse(entry.substring(colon + 1))));
+		}
+		this.edges = Collections.unmodifiableList(edgeTables);
+		this.tables = Collections.unmodifiableList(tables);
+		this.heuristic = Heuristic.max(tables.toArray(new Heuristic[tables.size()]));
+		this.metric = this.corners.metric;
+		this.frontier = frontierDepth > 0 ? new Frontier(this.metric, frontierDepth, frontierBytes) : null;
+	}
+
+	/**
+	 * Loads the tables named in the config file, or the default tables if there is none.
+	 * @return the config
+	 */
+	public static SolverConfig load() {
+		String fileName = System.getProperty("solver.config", DEFAULT_FILE);
+		if (!new File(fileName).exists()) {
+			return new SolverConfig("default", "corners.pdb", "edgesSetOne.pdb:0-5 edgesSetTwo.pdb:6-11");
+		}
+		return load(fileName);
+	}
+
+	/**
+	 * Loads the tables named in a config file.
+	 * @param fileName the config file
+	 * @return the config
+	 */
+	public static SolverConfig load(String fileName) {
+		Properties properties = new Properties();
+		InputStream in = null;
+		try {
+			in = new FileInputStream(fileName);
+			properties.load(in);
+		} catch (IOException e) {
+			throw new RuntimeException("Could not read " + fileName);
+		} finally {
+			if (in != null) {
+				try {
+					in.close();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+		String edges = properties.getProperty("edges");
+		if (edges == null || edges.trim().isEmpty()) {
+			throw new RuntimeException(fileName + " does not name any edge tables");
+		}
+		int frontierDepth = Integer.parseInt(properties.getProperty("frontier.depth", "0").trim());
+		long frontierBytes = Long.parseLong(properties.getProperty("frontier.megabytes", "256").trim()) << 20;
+		SolverConfig config = new SolverConfig(tableName(fileName), properties.getProperty("corners", "corners.pdb"),
+				edges, frontierDepth, frontierBytes);
+		long transpositionBytes = Long.parseLong(properties.getProperty("transpositions.megabytes", "0").trim()) << 20;
+		if (transpositionBytes > 0) {
+			config.transpositions = new TranspositionTable(config.metric, transpositionBytes);
+		}
+		long cacheBytes = Long.parseLong(properties.getProperty("cache.megabytes", "0").trim()) << 20;
+		if (cacheBytes > 0) {
+			config.cache = new SolutionCache(config.metric, cacheBytes).register(config.name);
+			String cacheFile = properties.getProperty("cache.file");
+			if (cacheFile != null && !cacheFile.trim().isEmpty()) {
+				config.cache.persist(cacheFile.trim());
+			}
+		}
+		if (Boolean.parseBoolean(properties.getProperty("metrics", "false").trim())) {
+			config.metrics = new SolverMetrics().register(config.name);
+		}
+		config.mode = Solver.Mode.parse(properties.getProperty("mode", "optimal").trim());
+		config.targetLength = Integer.parseInt(properties.getProperty("twophase.length", "0").trim());
+		return config;
+	}
+
+	/**
+	 * @return the number of bytes all the tables, the frontier and the
+	 *         transposition table take up
+	 */
+	public long bytes() {
+		long bytes = this.corners.bytes();
+		for (PatternDatabase table : this.edges) {
+			bytes += table.bytes();
+		}
+		if (this.frontier != null) {
+			bytes += this.frontier.bytes();
+		}
+		if (this.transpositions != null) {
+			bytes += this.transpositions.bytes();
+		}
+		return bytes;
+	}
+
+	/**
+	 * Builds a solver that prunes with the maximum of all the tables and
+	 * meets the goal at the frontier, if there is one, in the mode of the file.
+	 * Every solver of this config shares its transposition table, its
+	 * solution cache and its metrics.
+	 * @param pool the pool subtrees are searched on, or null to search on the calling thread
+	 * @return the solver
+	 */
+	public Solver solver(ForkJoinPool pool) {
+		return new Solver(this.heuristic, this.metric, pool, this.frontier).withMode(this.mode, this.targetLength)
+				.withTranspositionTable(this.transpositions).withMetrics(this.metrics).withSolutionCache(this.cache);
+	}
+
+	/**
+	 * The name of a file without its directory and extension.
+	 */
+	private static String tableName(String fileName) {
+		String name = new File(fileName).getName();
+		int dot = name.lastIndexOf('.');
+		return dot > 0 ? name.substring(0, dot) : name;
+	}
+}
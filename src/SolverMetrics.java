@@ -0,0 +1,307 @@
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counts what the searches of a solver do, to find out why a solve is
+ * slow: the nodes of every iteration and how long it took, the nodes
+ * visited at each depth and so the effective branching factor, how often
+ * the heuristic gave each value, and how often each pattern database was
+ * looked up. See Solver.withMetrics.
+ *
+ * The counts add up over every solve since the metrics were created or
+ * reset and can be read over JMX once the metrics are registered. A
+ * Listener also gets the progress of every solve that is running, at most
+ * once per interval.
+ *
+ * Workers count in arrays of their own and add them to the metrics at the
+ * same interval as their node counts, so a search with metrics only does
+ * two more array increments per node, and one without does none.
+ */
+public class SolverMetrics implements SolverMetricsMXBean {
+
+	/**
+	 * Nodes at this depth or deeper, and heuristic values this large or
+	 * larger, are counted together in the last entry.
+	 */
+	public static final int MAX_DEPTH = 32;
+
+	/**
+	 * Gets told how a solve is getting on while it runs.
+	 */
+	public interface Listener {
+		/**
+		 * Called on one of the threads of the search, so it has to be quick.
+		 * @param progress how far the solve got
+		 */
+		void progress(Progress progress);
+	}
+
+	/**
+	 * How far a solve got.
+	 */
+	public static final class Progress {
+		/**
+		 * The bound of the iteration that is running.
+		 */
+		public final int bound;
+
+		/**
+		 * The nodes visited since the solve started.
+		 */
+		public final long nodes;
+
+		/**
+		 * The nodes visited since the iteration started.
+		 */
+		public final long iterationNodes;
+
+		/**
+		 * The time since the solve started, in nanoseconds.
+		 */
+		public final long nanos;
+
+		/**
+		 * The time since the iteration started, in nanoseconds.
+		 */
+		public final long iterationNanos;
+
+		public Progress(int bound, long nodes, long iterationNodes, long nanos, long iterationNanos) {
+			this.bound = bound;
+			this.nodes = nodes;
+			this.iterationNodes = iterationNodes;
+			this.nanos = nanos;
+			this.iterationNanos = iterationNanos;
+		}
+
+		/**
+		 * @return the nodes visited per second since the solve started
+		 */
+		public double nodesPerSecond() {
+			return this.nanos > 0 ? this.nodes * 1e9 / this.nanos : 0;
+		}
+
+		@Override
+		public String toString() {
+			return "bound " + this.bound + ": " + this.iterationNodes + " nodes in " + this.iterationNanos / 1000000
+					+ " ms, " + this.nodes + " nodes in " + this.nanos / 1000000 + " ms, "
+					+ (long) nodesPerSecond() + " nodes/s";
+		}
+	}
+
+	private final Listener listener;
+	private final long intervalNanos;
+	private final AtomicLong solves = new AtomicLong();
+	private final AtomicLong activeSolves = new AtomicLong();
+	private final AtomicLong nodes = new AtomicLong();
+	private final AtomicLong nanos = new AtomicLong();
+	private final AtomicLong finishedNodes = new AtomicLong();
+	private final AtomicLongArray depths = new AtomicLongArray(MAX_DEPTH);
+	private final AtomicLongArray estimates = new AtomicLongArray(MAX_DEPTH);
+	private final ConcurrentHashMap<String, AtomicLong> lookups = new ConcurrentHashMap<String, AtomicLong>();
+	private volatile Solution lastSolution;
+
+	/**
+	 * Creates metrics without a listener.
+	 */
+	public SolverMetrics() {
+		this(null, 0);
+	}
+
+	/**
+	 * Creates metrics that report the progress of every solve.
+	 * @param listener gets told the progress, or null
+	 * @param intervalMillis the time between two reports of a solve
+	 */
+	public SolverMetrics(Listener listener, long intervalMillis) {
+		this.listener = listener;
+		this.intervalNanos = intervalMillis * 1000000;
+	}
+
+	/**
+	 * Shows the metrics over JMX as rubikscube:type=Solver,name=name.
+	 * @param name tells the solvers of one process apart, eg: the name of the config
+	 * @return the metrics
+	 */
+	public SolverMetrics register(String name) {
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this,
+					new ObjectName("rubikscube:type=Solver,name=" + ObjectName.quote(name)));
+		} catch (JMException e) {
+			throw new RuntimeException("Could not register the metrics of " + name, e);
+		}
+		return this;
+	}
+
+	/**
+	 * @return true if there is a listener to report progress to
+	 */
+	boolean reportsProgress() {
+		return this.listener != null;
+	}
+
+	/**
+	 * @return the time between two reports of a solve, in nanoseconds
+	 */
+	long intervalNanos() {
+		return this.intervalNanos;
+	}
+
+	void progress(Progress progress) {
+		this.listener.progress(progress);
+	}
+
+	void started() {
+		this.activeSolves.incrementAndGet();
+	}
+
+	/**
+	 * Adds the counts of a worker.
+	 * @param nodes the nodes it visited
+	 * @param depths the nodes it visited at each depth, which are cleared
+	 * @param estimates the nodes it estimated at each value, which are cleared
+	 * @param lookups the lookups of each table per estimate, see Heuristic.lookups
+	 */
+	void count(long nodes, long[] depths, long[] estimates, Map<String, Integer> lookups) {
+		this.nodes.addAndGet(nodes);
+		for (int i = 0; i < MAX_DEPTH; i++) {
+			if (depths[i] != 0) {
+				this.depths.addAndGet(i, depths[i]);
+				depths[i] = 0;
+			}
+			if (estimates[i] != 0) {
+				this.estimates.addAndGet(i, estimates[i]);
+				estimates[i] = 0;
+			}
+		}
+		for (Map.Entry<String, Integer> lookup : lookups.entrySet()) {
+			AtomicLong count = this.lookups.get(lookup.getKey());
+			if (count == null) {
+				this.lookups.putIfAbsent(lookup.getKey(), new AtomicLong());
+				count = this.lookups.get(lookup.getKey());
+			}
+			count.addAndGet(nodes * lookup.getValue());
+		}
+	}
+
+	void finished(Solution solution) {
+		this.activeSolves.decrementAndGet();
+		this.solves.incrementAndGet();
+		this.nanos.addAndGet(solution.nanos);
+		this.finishedNodes.addAndGet(solution.nodes);
+		this.lastSolution = solution;
+	}
+
+	@Override
+	public long getSolves() {
+		return this.solves.get();
+	}
+
+	@Override
+	public long getActiveSolves() {
+		return this.activeSolves.get();
+	}
+
+	@Override
+	public long getNodes() {
+		return this.nodes.get();
+	}
+
+	@Override
+	public long getSearchMillis() {
+		return this.nanos.get() / 1000000;
+	}
+
+	@Override
+	public double getNodesPerSecond() {
+		long nanos = this.nanos.get();
+		return nanos > 0 ? this.finishedNodes.get() * 1e9 / nanos : 0;
+	}
+
+	@Override
+	public long[] getNodesPerDepth() {
+		return toArray(this.depths);
+	}
+
+	@Override
+	public double[] getBranchingFactors() {
+		long[] depths = getNodesPerDepth();
+		double[] factors = new double[MAX_DEPTH - 1];
+		for (int i = 0; i < factors.length; i++) {
+			factors[i] = depths[i] > 0 ? (double) depths[i + 1] / depths[i] : 0;
+		}
+		return factors;
+	}
+
+	@Override
+	public long[] getHeuristicHistogram() {
+		return toArray(this.estimates);
+	}
+
+	@Override
+	public Map<String, Long> getTableLookups() {
+		Map<String, Long> lookups = new TreeMap<String, Long>();
+		for (Map.Entry<String, AtomicLong> lookup : this.lookups.entrySet()) {
+			lookups.put(lookup.getKey(), lookup.getValue().get());
+		}
+		return lookups;
+	}
+
+	@Override
+	public int[] getLastSolveBounds() {
+		Solution solution = this.lastSolution;
+		int[] bounds = new int[solution == null ? 0 : solution.iterations.size()];
+		for (int i = 0; i < bounds.length; i++) {
+			bounds[i] = solution.iterations.get(i).bound;
+		}
+		return bounds;
+	}
+
+	@Override
+	public long[] getLastSolveIterationNodes() {
+		Solution solution = this.lastSolution;
+		long[] nodes = new long[solution == null ? 0 : solution.iterations.size()];
+		for (int i = 0; i < nodes.length; i++) {
+			nodes[i] = solution.iterations.get(i).nodes;
+		}
+		return nodes;
+	}
+
+	@Override
+	public long[] getLastSolveIterationMillis() {
+		Solution solution = this.lastSolution;
+		long[] millis = new long[solution == null ? 0 : solution.iterations.size()];
+		for (int i = 0; i < millis.length; i++) {
+			millis[i] = solution.iterations.get(i).nanos / 1000000;
+		}
+		return millis;
+	}
+
+	@Override
+	public void reset() {
+		this.solves.set(0);
+		this.nodes.set(0);
+		this.nanos.set(0);
+		this.finishedNodes.set(0);
+		for (int i = 0; i < MAX_DEPTH; i++) {
+			this.depths.set(i, 0);
+			this.estimates.set(i, 0);
+		}
+		this.lookups.clear();
+		this.lastSolution = null;
+	}
+
+	private static long[] toArray(AtomicLongArray counts) {
+		long[] array = new long[counts.length()];
+		for (int i = 0; i < array.length; i++) {
+			array[i] = counts.get(i);
+		}
+		return array;
+	}
+}
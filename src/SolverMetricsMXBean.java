@@ -0,0 +1,74 @@
+import java.util.Map;
+
+/**
+ * What SolverMetrics shows over JMX, eg: in jconsole or VisualVM under
+ * rubikscube:type=Solver.
+ */
+public interface SolverMetricsMXBean {
+
+	/**
+	 * @return the number of solves that finished
+	 */
+	long getSolves();
+
+	/**
+	 * @return the number of solves that are searching right now
+	 */
+	long getActiveSolves();
+
+	/**
+	 * @return the number of nodes all the solves visited
+	 */
+	long getNodes();
+
+	/**
+	 * @return the time all the finished solves took, in milliseconds
+	 */
+	long getSearchMillis();
+
+	/**
+	 * @return the nodes the finished solves visited per second of their time
+	 */
+	double getNodesPerSecond();
+
+	/**
+	 * @return the number of nodes visited at each depth, the number of moves from the cube
+	 */
+	long[] getNodesPerDepth();
+
+	/**
+	 * @return the effective branching factor at each depth: the nodes at the
+	 *         next depth for each node at this depth, or 0 past the deepest node
+	 */
+	double[] getBranchingFactors();
+
+	/**
+	 * @return the number of nodes the heuristic estimated at each value
+	 */
+	long[] getHeuristicHistogram();
+
+	/**
+	 * @return the number of lookups in each pattern database, by the name of the table
+	 */
+	Map<String, Long> getTableLookups();
+
+	/**
+	 * @return the bound of each iteration of the last solve that finished
+	 */
+	int[] getLastSolveBounds();
+
+	/**
+	 * @return the nodes visited in each iteration of the last solve that finished
+	 */
+	long[] getLastSolveIterationNodes();
+
+	/**
+	 * @return the time each iteration of the last solve that finished took, in milliseconds
+	 */
+	long[] getLastSolveIterationMillis();
+
+	/**
+	 * Starts counting from zero again.
+	 */
+	void reset();
+}
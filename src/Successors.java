@@ -0,0 +1,164 @@
+/**
+ * Expands the nodes of a depth first search on the stickers of a cube
+ * without allocating. Unlike CubeNode.getSuccessors, which builds a list
+ * with a new state and a new path for every successor, the states are
+ * written into one preallocated array per depth and the path is a stack
+ * of moves, so a search that visits millions of nodes creates no garbage.
+ *
+ * A search resets the stack to a cube, expands the top of the stack with
+ * a Visitor, and pushes the successors it wants to go deeper into from
+ * the visitor, popping them again when it is done:
+ *
+ *   boolean visit(int move, char[] state, int heuristic) {
+ *     if (heuristic + successors.depth() < bound) {
+ *       successors.push(move);
+ *       successors.expand(this);
+ *       successors.pop();
+ *     }
+ *     return true;
+ *   }
+ *
+ * The arrays are reused, so a visitor must copy a state it wants to keep.
+ * A Successors is not thread safe, give every thread its own.
+ */
+public class Successors {
+
+	/**
+	 * Gets every successor of the node on top of the stack.
+	 */
+	public interface Visitor {
+		/**
+		 * @param move the move from the top of the stack to the successor
+		 * @param state the state of the successor, which is overwritten by the next one
+		 * @param heuristic the estimated number of moves to solve the successor
+		 * @return false to skip the remaining successors
+		 */
+		boolean visit(int move, char[] state, int heuristic);
+	}
+
+	private final Heuristic heuristic;
+
+	/**
+	 * The state at each depth of the stack. The one past the top holds
+	 * the successor that was written last.
+	 */
+	private final char[][] states;
+
+	/**
+	 * The move that leads to each depth of the stack from the one before.
+	 */
+	private final byte[] moves;
+
+	private int depth;
+
+	/**
+	 * The move the successor past the top of the stack was made with, or
+	 * Move.NONE if it holds nothing, so push doesn't make it again.
+	 */
+	private int written;
+
+	/**
+	 * @param heuristic estimates the successors
+	 * @param maxDepth the deepest the stack can get, in moves
+	 */
+	public Successors(Heuristic heuristic, int maxDepth) {
+		this.heuristic = heuristic;
+		this.states = new char[maxDepth + 1][Cube.GOAL.length()];
+		this.moves = new byte[maxDepth];
+		reset(Cube.GOAL.toCharArray());
+	}
+
+	/**
+	 * Empties the stack and puts a cube at its bottom.
+	 * @param state the state of the cube, which is copied
+	 */
+	public void reset(char[] state) {
+		System.arraycopy(state, 0, this.states[0], 0, this.states[0].length);
+		this.depth = 0;
+		this.written = Move.NONE;
+	}
+
+	/**
+	 * @return the number of moves on the stack
+	 */
+	public int depth() {
+		return this.depth;
+	}
+
+	/**
+	 * @return the state on top of the stack, which must not be changed
+	 */
+	public char[] state() {
+		return this.states[this.depth];
+	}
+
+	/**
+	 * @return the move that led to the top of the stack, or Move.NONE at the bottom
+	 */
+	public int lastMove() {
+		return this.depth == 0 ? Move.NONE : this.moves[this.depth - 1];
+	}
+
+	/**
+	 * @return the moves on the stack, of which the first depth() are used
+	 */
+	public byte[] moves() {
+		return this.moves;
+	}
+
+	/**
+	 * @return the moves on the stack in our notation, eg: O1R3
+	 */
+	public String path() {
+		return Move.toString(this.moves, this.depth);
+	}
+
+	/**
+	 * Makes every move that may follow the top of the stack, see
+	 * Move.allowed, estimates the successor and hands it to the visitor.
+	 * At the bottom of the stack all 18 moves are made.
+	 * @param visitor gets the successors
+	 * @return the number of successors the visitor got
+	 */
+	public int expand(Visitor visitor) {
+		int previous = lastMove();
+		char[] state = this.states[this.depth];
+		char[] successor = this.states[this.depth + 1];
+		int count = 0;
+		for (int move = 0; move < Move.COUNT; move++) {
+			if (!Move.allowed(previous, move)) {
+				continue;
+			}
+			Move.apply(state, move, successor);
+			this.written = move;
+			count++;
+			if (!visitor.visit(move, successor, this.heuristic.estimate(successor))) {
+				break;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Makes a move on top of the stack. From a visitor this takes the
+	 * successor it was given, without making the move again.
+	 * @param move the move
+	 */
+	public void push(int move) {
+		if (this.written != move) {
+			Move.apply(this.states[this.depth], move, this.states[this.depth + 1]);
+		}
+		this.moves[this.depth] = (byte) move;
+		this.depth++;
+		this.written = Move.NONE;
+	}
+
+	/**
+	 * Takes the last move off the stack.
+	 */
+	public void pop() {
+		this.depth--;
+		// What is past the top now is the state that was popped
+		this.written = this.moves[this.depth];
+	}
+}
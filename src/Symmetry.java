@@ -0,0 +1,567 @@
+import java.util.Arrays;
+
+/**
+ * The 48 symmetries of the cube: the 24 rotations of the whole cube, each
+ * with and without a mirror image.
+ *
+ * Conjugating a state by a symmetry turns (and maybe mirrors) the whole
+ * cube, then paints the stickers so the centres are back in their usual
+ * colours. A mirrored face turn is still a face turn, so the conjugate of
+ * a state is exactly as far from solved as the state itself, and so is
+ * its inverse. This gives two things:
+ *  - the corner states fall into symmetry classes that share a distance,
+ *    so a corner table only needs an entry per class (see reduceCorners)
+ *  - a table can be looked up on the inverse or on a conjugate of a
+ *    state, which often gives a larger bound for the same table, since
+ *    a conjugate puts a different set of edges into the tracked slots
+ *
+ * The symmetries are found from the layout of the stickers: every sticker
+ * gets a point in space from the faces it touches, and a symmetry is one
+ * of the 48 ways to permute and negate the axes. The cubie tables are then
+ * read off conjugated states, so they follow whatever Cube.CORNERS and
+ * Cube.EDGES say about positions and orientations.
+ */
+public class Symmetry {
+
+	/**
+	 * The number of symmetries. Symmetry 0 is the identity.
+	 */
+	public final static int COUNT = 48;
+
+	/**
+	 * The face colours and the direction each face points in.
+	 */
+	private final static String COLORS = "RGYBOW";
+	private final static int[][] NORMALS = {
+			{0, 1, 0}, {-1, 0, 0}, {0, 0, 1}, {1, 0, 0}, {0, -1, 0}, {0, 0, -1}};
+
+	/**
+	 * Where each sticker goes, indexed by [symmetry][sticker].
+	 */
+	private final static int[][] FACELETS = new int[COUNT][54];
+
+	/**
+	 * The colour each colour is painted over with, indexed by [symmetry][colour].
+	 */
+	private final static char[][] PAINT = new char[COUNT][128];
+
+	/**
+	 * The symmetry that undoes each symmetry.
+	 */
+	public final static int[] INVERSE = new int[COUNT];
+
+	/**
+	 * Where each corner position goes, indexed by [symmetry][position].
+	 * Since corner k starts at position k, this is also where each corner cubie goes.
+	 */
+	private final static int[][] CORNER_POSITIONS = new int[COUNT][8];
+
+	/**
+	 * The twist of a corner after a conjugation,
+	 * indexed by [symmetry][(position * 8 + corner) * 3 + twist].
+	 */
+	private final static byte[][] CORNER_TWISTS = new byte[COUNT][8 * 8 * 3];
+
+	/**
+	 * Where each edge position goes, indexed by [symmetry][position].
+	 */
+	private final static int[][] EDGE_POSITIONS = new int[COUNT][12];
+
+	/**
+	 * The flip of an edge after a conjugation,
+	 * indexed by [symmetry][(position * 12 + edge) * 2 + flip].
+	 */
+	private final static byte[][] EDGE_FLIPS = new byte[COUNT][12 * 12 * 2];
+
+	/**
+	 * The move each move becomes after a conjugation, indexed by [symmetry][move].
+	 */
+	private final static byte[][] MOVES = new byte[COUNT][Move.COUNT];
+
+	static {
+		initFacelets();
+		initCubies();
+		initMoves();
+	}
+
+	/**
+	 * The symmetry class of every corner permutation rank. The classes are
+	 * numbered in the order of their smallest permutation rank.
+	 */
+	private final static char[] CORNER_CLASS = new char[Cube.CORNER_PERMUTATIONS];
+
+	/**
+	 * A symmetry that conjugates every corner permutation rank into the
+	 * representative of its class.
+	 */
+	private final static byte[] CORNER_CLASS_SYMMETRY = new byte[Cube.CORNER_PERMUTATIONS];
+
+	/**
+	 * The symmetries that conjugate the representative of each class into
+	 * itself, one bit per symmetry. For most classes this is only the
+	 * identity.
+	 */
+	private final static long[] CORNER_STABILIZERS = new long[Cube.CORNER_PERMUTATIONS];
+
+	/**
+	 * The representative of every class, the smallest corner permutation rank
+	 * in it. This is the inverse of CORNER_CLASS.
+	 */
+	private final static char[] CORNER_REPRESENTATIVES = initCornerClasses();
+
+	/**
+	 * The number of symmetry classes of the corner permutations.
+	 */
+	public final static int CORNER_CLASSES = CORNER_REPRESENTATIVES.length;
+
+	/**
+	 * Conjugates a state by a symmetry.
+	 * @param state the state of the cube, stickers that aren't colours are copied as they are
+	 * @param symmetry the symmetry
+	 * @param result the array that will hold the conjugated state
+	 */
+	public static void conjugate(char[] state, int symmetry, char[] result) {
+		int[] facelets = FACELETS[symmetry];
+		char[] paint = PAINT[symmetry];
+		for (int i = 0; i < facelets.length; i++) {
+			char c = state[i];
+			result[facelets[i]] = c < paint.length && paint[c] != 0 ? paint[c] : c;
+		}
+	}
+
+	/**
+	 * Conjugates a move by a symmetry: making the move and then conjugating
+	 * gives the same state as conjugating and then making the conjugated
+	 * move. A mirror image turns the other way, so it changes the number of
+	 * turns of a quarter turn, but never its cost.
+	 * @param move the move
+	 * @param symmetry the symmetry
+	 * @return the conjugated move
+	 */
+	public static int conjugateMove(int move, int symmetry) {
+		return MOVES[symmetry][move];
+	}
+
+	/**
+	 * Conjugates a corner coordinate by a symmetry. Doesn't allocate.
+	 * @param corners the rank of the corners, as built by Cube.rankCorners
+	 * @param symmetry the symmetry
+	 * @return the rank of the corners of the conjugated state
+	 */
+	public static int conjugateCorners(int corners, int symmetry) {
+		int permutation = corners / Cube.CORNER_ORIENTATIONS;
+		long cubies = unrank(permutation, 8, 8);
+		int twists = unrankTwists(corners - permutation * Cube.CORNER_ORIENTATIONS);
+		int[] positions = CORNER_POSITIONS[symmetry];
+		byte[] table = CORNER_TWISTS[symmetry];
+		long movedCubies = 0;
+		int movedTwists = 0;
+		for (int position = 0; position < 8; position++) {
+			int corner = (int) (cubies >>> (4 * position)) & 15;
+			int twist = (twists >>> (2 * position)) & 3;
+			int to = positions[position];
+			movedCubies |= (long) positions[corner] << (4 * to);
+			movedTwists |= table[(position * 8 + corner) * 3 + twist] << (2 * to);
+		}
+		return rank(movedCubies, 8, 8) * Cube.CORNER_ORIENTATIONS + rankTwists(movedTwists);
+	}
+
+	/**
+	 * Finds the corner coordinate of the inverse of a state. Doesn't allocate.
+	 * @param corners the rank of the corners, as built by Cube.rankCorners
+	 * @return the rank of the corners of the inverse
+	 */
+	public static int inverseCorners(int corners) {
+		int permutation = corners / Cube.CORNER_ORIENTATIONS;
+		long cubies = unrank(permutation, 8, 8);
+		int twists = unrankTwists(corners - permutation * Cube.CORNER_ORIENTATIONS);
+		long inverseCubies = 0;
+		int inverseTwists = 0;
+		for (int position = 0; position < 8; position++) {
+			// Corner k at position p becomes corner p at position k, twisted back
+			int corner = (int) (cubies >>> (4 * position)) & 15;
+			int twist = (twists >>> (2 * position)) & 3;
+			inverseCubies |= (long) position << (4 * corner);
+			inverseTwists |= ((3 - twist) % 3) << (2 * corner);
+		}
+		return rank(inverseCubies, 8, 8) * Cube.CORNER_ORIENTATIONS + rankTwists(inverseTwists);
+	}
+
+	/**
+	 * Conjugates the edges of a state by a symmetry. Both edge coordinates
+	 * are needed, since the conjugate can move any edge into either set.
+	 * Doesn't allocate.
+	 * @param edgesSetOne the rank of the first set of edges, as built by Cube.rankEdges
+	 * @param edgesSetTwo the rank of the second set of edges
+	 * @param symmetry the symmetry
+	 * @param set the set of edges to rank in the conjugated state, 0 or 1
+	 * @return the rank of the set of edges of the conjugated state
+	 */
+	public static int conjugateEdges(int edgesSetOne, int edgesSetTwo, int symmetry, int set) {
+		long positions = edgePositions(edgesSetOne, 0) | edgePositions(edgesSetTwo, 1);
+		int flips = edgeFlips(edgesSetOne, 0) | edgeFlips(edgesSetTwo, 1);
+		int[] moved = EDGE_POSITIONS[symmetry];
+		byte[] table = EDGE_FLIPS[symmetry];
+		long movedPositions = 0;
+		int movedFlips = 0;
+		for (int edge = 0; edge < 12; edge++) {
+			int position = (int) (positions >>> (4 * edge)) & 15;
+			int flip = (flips >>> edge) & 1;
+			movedPositions |= (long) moved[position] << (4 * moved[edge]);
+			movedFlips |= table[(position * 12 + edge) * 2 + flip] << moved[position];
+		}
+		return rankEdgeSet(movedPositions, movedFlips, set);
+	}
+
+	/**
+	 * Finds an edge coordinate of the inverse of a state. Doesn't allocate.
+	 * @param edgesSetOne the rank of the first set of edges, as built by Cube.rankEdges
+	 * @param edgesSetTwo the rank of the second set of edges
+	 * @param set the set of edges to rank in the inverse, 0 or 1
+	 * @return the rank of the set of edges of the inverse
+	 */
+	public static int inverseEdges(int edgesSetOne, int edgesSetTwo, int set) {
+		long positions = edgePositions(edgesSetOne, 0) | edgePositions(edgesSetTwo, 1);
+		int flips = edgeFlips(edgesSetOne, 0) | edgeFlips(edgesSetTwo, 1);
+		long inversePositions = 0;
+		int inverseFlips = 0;
+		for (int edge = 0; edge < 12; edge++) {
+			// Edge k at position p becomes edge p at position k
+			int position = (int) (positions >>> (4 * edge)) & 15;
+			inversePositions |= (long) edge << (4 * position);
+			inverseFlips |= ((flips >>> edge) & 1) << edge;
+		}
+		return rankEdgeSet(inversePositions, inverseFlips, set);
+	}
+
+	/**
+	 * Reduces a corner coordinate to its symmetry class: the representative
+	 * of the class of its permutation, along with the twists it has once it
+	 * is conjugated into that representative. When several symmetries lead
+	 * to the representative, the smallest twist rank is used, so that every
+	 * state of a class reduces to the same index.
+	 * @param corners the rank of the corners, as built by Cube.rankCorners
+	 * @return a number between 0 and CORNER_CLASSES * Cube.CORNER_ORIENTATIONS - 1
+	 */
+	public static int reduceCorners(int corners) {
+		int permutation = corners / Cube.CORNER_ORIENTATIONS;
+		int c = CORNER_CLASS[permutation];
+		int conjugated = conjugateCorners(corners, CORNER_CLASS_SYMMETRY[permutation]);
+		int twists = conjugated % Cube.CORNER_ORIENTATIONS;
+		// Bit 0, the identity, is always set
+		long stabilizer = CORNER_STABILIZERS[c] & ~1L;
+		while (stabilizer != 0) {
+			int symmetry = Long.numberOfTrailingZeros(stabilizer);
+			stabilizer &= stabilizer - 1;
+			int other = conjugateCorners(conjugated, symmetry) % Cube.CORNER_ORIENTATIONS;
+			if (other < twists) {
+				twists = other;
+			}
+		}
+		return c * Cube.CORNER_ORIENTATIONS + twists;
+	}
+
+	/**
+	 * The inverse of reduceCorners: a corner coordinate that reduces to the given index.
+	 * @param reduced the reduced index
+	 * @return the rank of the corners
+	 */
+	public static int expandCorners(int reduced) {
+		int c = reduced / Cube.CORNER_ORIENTATIONS;
+		return CORNER_REPRESENTATIVES[c] * Cube.CORNER_ORIENTATIONS + reduced % Cube.CORNER_ORIENTATIONS;
+	}
+
+	/**
+	 * Gives every sticker a point in space and maps the points through each
+	 * signed permutation of the axes. A sticker is twice the normal of its
+	 * face plus the normals of the faces its cubie also touches.
+	 */
+	private static void initFacelets() {
+		int[][] points = new int[54][];
+		for (int i = 0; i < 54; i++) {
+			points[i] = scale(normal(Cube.GOAL.charAt(i)), 2);
+		}
+		for (int[][] cubies : new int[][][] {Cube.CORNERS, Cube.EDGES}) {
+			for (int[] cubie : cubies) {
+				for (int sticker : cubie) {
+					for (int other : cubie) {
+						if (other != sticker) {
+							points[sticker] = add(points[sticker], normal(Cube.GOAL.charAt(other)));
+						}
+					}
+				}
+			}
+		}
+
+		int[][] axes = {{0, 1, 2}, {0, 2, 1}, {1, 0, 2}, {1, 2, 0}, {2, 0, 1}, {2, 1, 0}};
+		int symmetry = 0;
+		for (int[] axis : axes) {
+			for (int signs = 0; signs < 8; signs++) {
+				for (int i = 0; i < 54; i++) {
+					FACELETS[symmetry][i] = find(points, transform(points[i], axis, signs));
+				}
+				for (int face = 0; face < COLORS.length(); face++) {
+					int[] to = transform(NORMALS[face], axis, signs);
+					PAINT[symmetry][COLORS.charAt(face)] = COLORS.charAt(find(NORMALS, to));
+				}
+				symmetry++;
+			}
+		}
+		for (int s = 0; s < COUNT; s++) {
+			for (int t = 0; t < COUNT; t++) {
+				boolean inverse = true;
+				for (int i = 0; i < 54; i++) {
+					inverse &= FACELETS[t][FACELETS[s][i]] == i;
+				}
+				if (inverse) {
+					INVERSE[s] = t;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads off where each cubie goes and how it ends up turned by
+	 * conjugating states that hold a single cubie.
+	 */
+	private static void initCubies() {
+		char[] state = new char[54];
+		char[] conjugated = new char[54];
+		for (int s = 0; s < COUNT; s++) {
+			for (int position = 0; position < 8; position++) {
+				for (int corner = 0; corner < 8; corner++) {
+					for (int twist = 0; twist < 3; twist++) {
+						Arrays.fill(state, '.');
+						for (int i = 0; i < 3; i++) {
+							state[Cube.CORNERS[position][(twist + i) % 3]] = Cube.GOAL.charAt(Cube.CORNERS[corner][i]);
+						}
+						conjugate(state, s, conjugated);
+						int to = cornerAt(conjugated);
+						CORNER_POSITIONS[s][position] = to;
+						CORNER_TWISTS[s][(position * 8 + corner) * 3 + twist] =
+								(byte) Cube.cornerOrientationAt(conjugated, to);
+					}
+				}
+			}
+			for (int position = 0; position < 12; position++) {
+				for (int edge = 0; edge < 12; edge++) {
+					for (int flip = 0; flip < 2; flip++) {
+						Arrays.fill(state, '.');
+						state[Cube.EDGES[position][flip]] = Cube.GOAL.charAt(Cube.EDGES[edge][0]);
+						state[Cube.EDGES[position][1 - flip]] = Cube.GOAL.charAt(Cube.EDGES[edge][1]);
+						conjugate(state, s, conjugated);
+						int to = edgeAt(conjugated);
+						EDGE_POSITIONS[s][position] = to;
+						EDGE_FLIPS[s][(position * 12 + edge) * 2 + flip] = (byte) Cube.edgeOrientationAt(conjugated, to);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Finds the conjugate of every move by the state it makes from the goal,
+	 * since conjugating the goal gives the goal.
+	 */
+	private static void initMoves() {
+		char[] goal = Cube.GOAL.toCharArray();
+		char[][] turned = new char[Move.COUNT][goal.length];
+		for (int move = 0; move < Move.COUNT; move++) {
+			Move.apply(goal, move, turned[move]);
+		}
+		char[] conjugated = new char[goal.length];
+		for (int symmetry = 0; symmetry < COUNT; symmetry++) {
+			for (int move = 0; move < Move.COUNT; move++) {
+				conjugate(turned[move], symmetry, conjugated);
+				int found = -1;
+				for (int other = 0; other < Move.COUNT; other++) {
+					if (Arrays.equals(turned[other], conjugated)) {
+						found = other;
+					}
+				}
+				if (found < 0) {
+					throw new IllegalStateException("Symmetry " + symmetry + " doesn't turn a move into a move");
+				}
+				MOVES[symmetry][move] = (byte) found;
+			}
+		}
+	}
+
+	/**
+	 * Sorts the corner permutations into symmetry classes. Ranks are visited
+	 * in order, so the first rank of a class that is seen is its smallest.
+	 */
+	private static char[] initCornerClasses() {
+		Arrays.fill(CORNER_CLASS, Character.MAX_VALUE);
+		char[] representatives = new char[Cube.CORNER_PERMUTATIONS];
+		int classes = 0;
+		for (int permutation = 0; permutation < Cube.CORNER_PERMUTATIONS; permutation++) {
+			if (CORNER_CLASS[permutation] != Character.MAX_VALUE) {
+				continue;
+			}
+			representatives[classes] = (char) permutation;
+			for (int s = 0; s < COUNT; s++) {
+				int conjugated = conjugateCorners(permutation * Cube.CORNER_ORIENTATIONS, s)
+						/ Cube.CORNER_ORIENTATIONS;
+				if (conjugated == permutation) {
+					CORNER_STABILIZERS[classes] |= 1L << s;
+				}
+				if (CORNER_CLASS[conjugated] == Character.MAX_VALUE) {
+					CORNER_CLASS[conjugated] = (char) classes;
+					// The inverse symmetry takes the conjugate back to the representative
+					CORNER_CLASS_SYMMETRY[conjugated] = (byte) INVERSE[s];
+				}
+			}
+			classes++;
+		}
+		return Arrays.copyOf(representatives, classes);
+	}
+
+	private static int cornerAt(char[] state) {
+		for (int position = 0; position < 8; position++) {
+			if (state[Cube.CORNERS[position][0]] != '.') {
+				return position;
+			}
+		}
+		throw new IllegalStateException("A symmetry lost a corner");
+	}
+
+	private static int edgeAt(char[] state) {
+		for (int position = 0; position < 12; position++) {
+			if (state[Cube.EDGES[position][0]] != '.') {
+				return position;
+			}
+		}
+		throw new IllegalStateException("A symmetry lost an edge");
+	}
+
+	/**
+	 * Unpacks the positions of one set of edges, 4 bits per edge in the order of EDGES.
+	 */
+	private static long edgePositions(int edges, int set) {
+		return unrank(edges / Cube.EDGE_ORIENTATIONS, Cube.EDGE_SET_SIZE, 12) << (4 * Cube.EDGE_SET_SIZE * set);
+	}
+
+	/**
+	 * Unpacks the flips of one set of edges, 1 bit per edge in the order of EDGES.
+	 */
+	private static int edgeFlips(int edges, int set) {
+		int flips = 0;
+		for (int i = 0; i < Cube.EDGE_SET_SIZE; i++) {
+			// The first edge of the set is the highest bit of the rank
+			flips |= ((edges >>> (Cube.EDGE_SET_SIZE - 1 - i)) & 1) << i;
+		}
+		return flips << (Cube.EDGE_SET_SIZE * set);
+	}
+
+	/**
+	 * Ranks one set of edges the same way as Cube.rankEdges.
+	 * @param positions the position of every edge, 4 bits per edge
+	 * @param flips the flip of the edge at every position, 1 bit per position
+	 */
+	private static int rankEdgeSet(long positions, int flips, int set) {
+		long tracked = positions >>> (4 * Cube.EDGE_SET_SIZE * set);
+		int rankedFlips = 0;
+		for (int i = 0; i < Cube.EDGE_SET_SIZE; i++) {
+			int position = (int) (tracked >>> (4 * i)) & 15;
+			rankedFlips = (rankedFlips << 1) | ((flips >>> position) & 1);
+		}
+		return rank(tracked, Cube.EDGE_SET_SIZE, 12) * Cube.EDGE_ORIENTATIONS + rankedFlips;
+	}
+
+	/**
+	 * The same as Cube.rankPermutation, for numbers packed 4 bits each.
+	 */
+	private static int rank(long items, int count, int n) {
+		int rank = 0;
+		int used = 0;
+		for (int i = 0; i < count; i++) {
+			int item = (int) (items >>> (4 * i)) & 15;
+			rank = rank * (n - i) + item - Integer.bitCount(used & ((1 << item) - 1));
+			used |= 1 << item;
+		}
+		return rank;
+	}
+
+	/**
+	 * The same as Cube.unrankPermutation, for numbers packed 4 bits each.
+	 */
+	private static long unrank(int rank, int count, int n) {
+		long items = 0;
+		for (int i = count - 1; i >= 0; i--) {
+			items |= (long) (rank % (n - i)) << (4 * i);
+			rank /= n - i;
+		}
+		int used = 0;
+		for (int i = 0; i < count; i++) {
+			int digit = (int) (items >>> (4 * i)) & 15;
+			int item = 0;
+			while (true) {
+				if ((used & (1 << item)) == 0) {
+					if (digit == 0) {
+						break;
+					}
+					digit--;
+				}
+				item++;
+			}
+			used |= 1 << item;
+			items = (items & ~(15L << (4 * i))) | ((long) item << (4 * i));
+		}
+		return items;
+	}
+
+	/**
+	 * The same as Cube.unrankCornerOrientation, for twists packed 2 bits each.
+	 */
+	private static int unrankTwists(int rank) {
+		int twists = 0;
+		int sum = 0;
+		for (int position = 6; position >= 0; position--) {
+			twists |= (rank % 3) << (2 * position);
+			sum += rank % 3;
+			rank /= 3;
+		}
+		return twists | ((3 - sum % 3) % 3) << 14;
+	}
+
+	/**
+	 * The same as Cube.rankCornerOrientation, for twists packed 2 bits each.
+	 */
+	private static int rankTwists(int twists) {
+		int rank = 0;
+		for (int position = 0; position < 7; position++) {
+			rank = rank * 3 + ((twists >>> (2 * position)) & 3);
+		}
+		return rank;
+	}
+
+	private static int[] normal(char color) {
+		return NORMALS[COLORS.indexOf(color)];
+	}
+
+	private static int[] scale(int[] v, int k) {
+		return new int[] {v[0] * k, v[1] * k, v[2] * k};
+	}
+
+	private static int[] add(int[] a, int[] b) {
+		return new int[] {a[0] + b[0], a[1] + b[1], a[2] + b[2]};
+	}
+
+	private static int[] transform(int[] v, int[] axis, int signs) {
+		int[] result = new int[3];
+		for (int i = 0; i < 3; i++) {
+			result[i] = ((signs >>> i) & 1) == 0 ? v[axis[i]] : -v[axis[i]];
+		}
+		return result;
+	}
+
+	private static int find(int[][] points, int[] point) {
+		for (int i = 0; i < points.length; i++) {
+			if (Arrays.equals(points[i], point)) {
+				return i;
+			}
+		}
+		throw new IllegalStateException("No sticker at " + Arrays.toString(point));
+	}
+}
@@ -0,0 +1,230 @@
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A table of lower bounds proven by earlier parts of a search, so that a
+ * state reached again, by another path or in a later iteration of IDA*,
+ * is pruned without searching its subtree a second time.
+ *
+ * When the search of a subtree fails, the smallest f value that went over
+ * the bound, minus the g of the root, is a lower bound on the distance of
+ * the root that is usually larger than what the heuristic says. The search
+ * only tries the moves Move.allowed leaves after the previous move, so the
+ * bound holds for that face only and the face is part of the key.
+ *
+ * The g the state was searched at isn't kept. The search of the state
+ * failed, so g plus its bound went over the bound of the iteration, and
+ * reached again at a g at least as large the bound prunes it all the same.
+ *
+ * A bound is a distance in the metric of the table. Half turns cost more
+ * in the quarter-turn metric, so a bound proven there can be too high for a
+ * search in the half-turn metric, and Solver.withTranspositionTable only
+ * takes a table of its own metric.
+ *
+ * The table has a fixed size and never grows. The states are kept in an
+ * open addressing table in a direct buffer, outside of the Java heap, in
+ * buckets of two slots of 16 bytes:
+ *   long  1 bit set when the slot is used, the previous face, the corner rank
+ *         and the rank of the first edge set, xor the second long
+ *   long  the rank of the second edge set and the lower bound
+ * The first slot of a bucket keeps the state with the largest lower bound,
+ * which was proven by the largest subtree, the second slot keeps the state
+ * stored last. Workers read and write without locks: a slot written by two
+ * threads at once no longer matches either key, so it is a miss and not a
+ * wrong bound.
+ */
+public class TranspositionTable {
+
+	/**
+	 * The number of bytes in a slot of the table.
+	 */
+	private static final int SLOT_SIZE = 16;
+
+	/**
+	 * The largest number of slots, which keeps the table in one buffer.
+	 */
+	private static final long MAX_SLOTS = 1L << 26;
+
+	private static final long USED = 1L << 63;
+
+	/**
+	 * The metric the lower bounds are distances in.
+	 */
+	public final Metric metric;
+
+	/**
+	 * The number of slots in the table.
+	 */
+	public final long size;
+
+	private final ByteBuffer table;
+	private final int mask;
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong stores = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+
+	/**
+	 * Allocates a table.
+	 * @param metric the metric the lower bounds are distances in
+	 * @param maxBytes the most memory the table may take, rounded down to a power of two
+	 */
+	public TranspositionTable(Metric metric, long maxBytes) {
+		this.metric = metric;
+		long slots = 2;
+		while (slots * 2 * SLOT_SIZE <= maxBytes && slots * 2 <= MAX_SLOTS) {
+			slots <<= 1;
+		}
+		this.size = slots;
+		this.table = ByteBuffer.allocateDirect((int) slots * SLOT_SIZE);
+		// Buckets of two slots
+		this.mask = (int) (slots / 2) - 1;
+	}
+
+	/**
+	 * Looks up the lower bound of a state. Does not allocate, since it is
+	 * called during a search.
+	 * @param corners the rank of the corners, as built by Cube.rankCorners
+	 * @param edgesSetOne the rank of the first set of edges, as built by Cube.rankEdges
+	 * @param edgesSetTwo the rank of the second set of edges
+	 * @param previous the move that led to the state, or Move.NONE
+	 * @return the lower bound on the distance of the state, or -1 if it is not in the table
+	 */
+	public int lowerBound(int corners, int edgesSetOne, int edgesSetTwo, int previous) {
+		long key = key(corners, edgesSetOne, previous);
+		int slot = hash(key, edgesSetTwo) * 2;
+		for (int i = 0; i < 2; i++, slot++) {
+			long data = this.table.getLong(slot * SLOT_SIZE + 8);
+			if ((this.table.getLong(slot * SLOT_SIZE) ^ data) == key && (int) (data >>> 8) == edgesSetTwo) {
+				return (int) (data & 0xFF);
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Stores the lower bound of a state that was proven by searching it.
+	 * @param corners the rank of the corners
+	 * @param edgesSetOne the rank of the first set of edges
+	 * @param edgesSetTwo the rank of the second set of edges
+	 * @param previous the move that led to the state, or Move.NONE
+	 * @param lowerBound the lower bound on the distance of the state
+	 * @return true if another state was dropped to make room
+	 */
+	public boolean store(int corners, int edgesSetOne, int edgesSetTwo, int previous, int lowerBound) {
+		long key = key(corners, edgesSetOne, previous);
+		int first = hash(key, edgesSetTwo) * 2;
+		lowerBound = Math.min(lowerBound, 0xFF);
+		for (int slot = first; slot < first + 2; slot++) {
+			long data = this.table.getLong(slot * SLOT_SIZE + 8);
+			if ((this.table.getLong(slot * SLOT_SIZE) ^ data) == key && (int) (data >>> 8) == edgesSetTwo) {
+				// Keep the best of both
+				put(slot, key, edgesSetTwo, Math.max(lowerBound, (int) (data & 0xFF)));
+				return false;
+			}
+		}
+		boolean evicted = this.table.getLong((first + 1) * SLOT_SIZE) != 0;
+		long preferred = this.table.getLong(first * SLOT_SIZE + 8);
+		if (this.table.getLong(first * SLOT_SIZE) == 0 || lowerBound >= (int) (preferred & 0xFF)) {
+			// The state in the first slot moves down to the second
+			if (this.table.getLong(first * SLOT_SIZE) != 0) {
+				this.table.putLong((first + 1) * SLOT_SIZE, this.table.getLong(first * SLOT_SIZE));
+				this.table.putLong((first + 1) * SLOT_SIZE + 8, preferred);
+			} else {
+				evicted = false;
+			}
+			put(first, key, edgesSetTwo, lowerBound);
+		} else {
+			put(first + 1, key, edgesSetTwo, lowerBound);
+		}
+		return evicted;
+	}
+
+	/**
+	 * Adds to the counters. Workers count on their own and add their counts
+	 * from time to time, so that the counters aren't contended.
+	 * @param hits the number of lookups that found their state
+	 * @param misses the number of lookups that didn't
+	 * @param stores the number of lower bounds stored
+	 * @param evictions the number of states dropped to make room
+	 */
+	public void count(long hits, long misses, long stores, long evictions) {
+		this.hits.addAndGet(hits);
+		this.misses.addAndGet(misses);
+		this.stores.addAndGet(stores);
+		this.evictions.addAndGet(evictions);
+	}
+
+	/**
+	 * @return the number of lookups that found their state
+	 */
+	public long hits() {
+		return this.hits.get();
+	}
+
+	/**
+	 * @return the number of lookups that didn't find their state
+	 */
+	public long misses() {
+		return this.misses.get();
+	}
+
+	/**
+	 * @return the number of lower bounds stored
+	 */
+	public long stores() {
+		return this.stores.get();
+	}
+
+	/**
+	 * @return the number of states dropped to make room for others
+	 */
+	public long evictions() {
+		return this.evictions.get();
+	}
+
+	/**
+	 * Forgets every state and resets the counters.
+	 */
+	public void clear() {
+		for (int i = 0; i < this.table.capacity(); i += 8) {
+			this.table.putLong(i, 0);
+		}
+		this.hits.set(0);
+		this.misses.set(0);
+		this.stores.set(0);
+		this.evictions.set(0);
+	}
+
+	/**
+	 * @return the number of bytes the table takes up outside of the heap
+	 */
+	public long bytes() {
+		return this.table.capacity();
+	}
+
+	/**
+	 * @return the counters, eg: for a log line
+	 */
+	@Override
+	public String toString() {
+		return "hits=" + hits() + " misses=" + misses() + " stores=" + stores() + " evictions=" + evictions();
+	}
+
+	private void put(int slot, long key, int edgesSetTwo, int lowerBound) {
+		long data = (long) edgesSetTwo << 8 | lowerBound;
+		this.table.putLong(slot * SLOT_SIZE, key ^ data);
+		this.table.putLong(slot * SLOT_SIZE + 8, data);
+	}
+
+	private static long key(int corners, int edgesSetOne, int previous) {
+		// The moves a search tries only depend on the face of the previous move
+		long face = previous == Move.NONE ? Move.FACES.length : Move.face(previous);
+		return USED | face << 53 | (long) corners << 26 | edgesSetOne;
+	}
+
+	private int hash(long key, int edgesSetTwo) {
+		long h = (key ^ (long) edgesSetTwo * 0x9E3779B97F4A7C15L) * 0xC2B2AE3D27D4EB4FL;
+		return (int) (h ^ (h >>> 32)) & this.mask;
+	}
+}
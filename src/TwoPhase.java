@@ -0,0 +1,487 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Kociemba's two-phase algorithm, which finds a short solution in
+ * milliseconds instead of an optimal one.
+ *
+ * Red and orange are the up and down faces of our cube, so the subgroup
+ * between the phases is <R, O, G2, B2, Y2, W2>: every turn of red and
+ * orange and half turns of the other faces. Those moves never twist a
+ * corner, never flip an edge and keep the four edges between the side
+ * faces (edges 4-7 of Cube.EDGES) in that slice.
+ *
+ * Phase 1 searches for a sequence of any moves that brings the cube into
+ * the subgroup, using the twists of the corners, the flips of the edges
+ * and the positions of the slice edges. Phase 2 then solves the cube with
+ * the moves of the subgroup, using the permutations of the corners, of the
+ * other eight edges and of the slice edges. Each phase prunes with two
+ * small tables of about 1 MB, built with a breadth-first search the first
+ * time the class is used.
+ *
+ * Phase 1 runs as IDA*, and every phase 1 solution is finished by phase 2.
+ * After the first solution the search goes on to find shorter ones until
+ * one is short enough or the time runs out. Once phase 1 alone is as long
+ * as the best solution nothing shorter can be found and that solution is
+ * optimal.
+ */
+public class TwoPhase {
+
+	/**
+	 * No cube needs more moves than this.
+	 */
+	public static final int MAX_LENGTH = 30;
+
+	/**
+	 * The moves of phase 2.
+	 */
+	private static final int[] PHASE_TWO_MOVES = { 0, 1, 2, 3, 4, 5, 7, 10, 13, 16 };
+
+	private static final int TWISTS = Cube.CORNER_ORIENTATIONS;
+	private static final int FLIPS = 1 << 11;
+	private static final int SLICES = 495;
+	private static final int CORNER_PERMUTATIONS = Cube.CORNER_PERMUTATIONS;
+	private static final int EDGE_PERMUTATIONS = 40320;
+	private static final int SLICE_PERMUTATIONS = 24;
+
+	/**
+	 * The positions of the slice edges in a solved cube, one bit per position.
+	 */
+	private static final int SLICE_GOAL = 0xF0;
+
+	/**
+	 * The eight positions outside of the slice.
+	 */
+	private static final int[] OTHER_POSITIONS = { 0, 1, 2, 3, 8, 9, 10, 11 };
+
+	/**
+	 * The index of each position in OTHER_POSITIONS, or its index in the slice.
+	 */
+	private static final int[] POSITION_INDEX = { 0, 1, 2, 3, 0, 1, 2, 3, 4, 5, 6, 7 };
+
+	/**
+	 * How often the search checks the node limit and the timeout.
+	 */
+	private static final int CHECK_INTERVAL = 1 << 12;
+
+	/**
+	 * The rank of every set of four edge positions, and the set for every rank.
+	 */
+	private static final int[] SLICE_RANK = new int[1 << 12];
+	private static final int[] SLICE_POSITIONS = new int[SLICES];
+
+	static {
+		for (int positions = 0, rank = 0; positions < 1 << 12; positions++) {
+			if (Integer.bitCount(positions) == 4) {
+				SLICE_POSITIONS[rank] = positions;
+				SLICE_RANK[positions] = rank++;
+			}
+		}
+	}
+
+	private static final int[] TWIST_MOVE = initTwistMove();
+	private static final int[] FLIP_MOVE = initFlipMove();
+	private static final int[] SLICE_MOVE = initSliceMove();
+	private static final int[] CORNER_MOVE = initCornerMove();
+	private static final int[] EDGE_MOVE = initEdgeMove();
+	private static final int[] SLICE_PERMUTATION_MOVE = initSlicePermutationMove();
+
+	private static final byte[] TWIST_SLICE_DISTANCE = distances(TWISTS, SLICES, TWIST_MOVE, SLICE_MOVE, Move.COUNT);
+	private static final byte[] FLIP_SLICE_DISTANCE = distances(FLIPS, SLICES, FLIP_MOVE, SLICE_MOVE, Move.COUNT);
+	private static final byte[] CORNER_SLICE_DISTANCE = distances(CORNER_PERMUTATIONS, SLICE_PERMUTATIONS,
+			CORNER_MOVE, SLICE_PERMUTATION_MOVE, PHASE_TWO_MOVES.length);
+	private static final byte[] EDGE_SLICE_DISTANCE = distances(EDGE_PERMUTATIONS, SLICE_PERMUTATIONS,
+			EDGE_MOVE, SLICE_PERMUTATION_MOVE, PHASE_TWO_MOVES.length);
+
+	/**
+	 * Builds the tables of both phases, which takes about half a second,
+	 * unless they were built already. Solvers call this when they are
+	 * created, so the first solve with a deadline doesn't spend it on them.
+	 */
+	public static void init() {
+		// The tables are built when the class is initialized, before this runs
+	}
+
+	/**
+	 * Solves a cube in two phases.
+	 * @param state the state of the cube
+	 * @param metric the metric the cost of the solution is given in
+	 * @param targetLength stop as soon as a solution this short is found, or 0
+	 *                     to stop at the first solution unless there is a timeout
+	 * @param limit the number of nodes to visit before giving up, or 0 for no limit
+	 * @param timeoutMillis the time to search for shorter solutions, or 0 for no timeout
+	 * @return the shortest solution found. Every shorter solution that was found
+	 *         on the way is an iteration, with its length as the bound.
+	 * @throws IllegalArgumentException if the state is not a valid cube
+	 */
+	public static Solution solve(char[] state, Metric metric, int targetLength, long limit, long timeoutMillis) {
+		long start = System.nanoTime();
+		int corners = Cube.rankCorners(state);
+		int edgesSetOne = Cube.rankEdges(state, 0);
+		int edgesSetTwo = Cube.rankEdges(state, 1);
+		if (corners < 0 || edgesSetOne < 0 || edgesSetTwo < 0) {
+			throw new IllegalArgumentException("This cube is not valid");
+		}
+		long deadline = timeoutMillis > 0 ? start + timeoutMillis * 1000000 : 0;
+		Search search = new Search(corners, edgesSetOne, edgesSetTwo, targetLength, limit, deadline, start);
+		int twist = corners % TWISTS;
+		int flip = flip(state);
+		int slice = SLICE_RANK[slicePositions(state)];
+		for (int length = phaseOneDistance(twist, flip, slice); length < search.best && !search.stopped; length++) {
+			search.phaseOne(twist, flip, slice, length, 0, Move.NONE);
+		}
+
+		boolean found = search.solution != null;
+		byte[] moves = found ? search.solution : new byte[0];
+		int cost = 0;
+		for (byte move : moves) {
+			cost += metric.cost(move);
+		}
+		return new Solution(found, search.timedOut, moves, cost, search.nodes, System.nanoTime() - start,
+				search.iterations);
+	}
+
+	/**
+	 * What one call of solve keeps track of.
+	 */
+	private static final class Search {
+		final int corners;
+		final int edgesSetOne;
+		final int edgesSetTwo;
+		final int targetLength;
+		final long limit;
+		final long deadline;
+		final byte[] path = new byte[MAX_LENGTH];
+		final int[] positions = new int[Cube.EDGE_SET_SIZE];
+		final int[] edges = new int[12];
+		final int[] others = new int[OTHER_POSITIONS.length];
+		final int[] slice = new int[4];
+		final List<Solution.Iteration> iterations = new ArrayList<Solution.Iteration>();
+		int best = MAX_LENGTH + 1;
+		byte[] solution;
+		long nodes;
+		long lastNodes;
+		long lastNanos;
+		boolean stopped;
+		boolean timedOut;
+
+		Search(int corners, int edgesSetOne, int edgesSetTwo, int targetLength, long limit, long deadline,
+				long start) {
+			this.corners = corners;
+			this.edgesSetOne = edgesSetOne;
+			this.edgesSetTwo = edgesSetTwo;
+			this.targetLength = targetLength;
+			this.limit = limit;
+			this.deadline = deadline;
+			this.lastNanos = start;
+		}
+
+		/**
+		 * Counts a node and stops the search if it went over the limit or
+		 * the deadline has passed.
+		 */
+		private void visit() {
+			if ((++this.nodes & (CHECK_INTERVAL - 1)) != 0) {
+				return;
+			}
+			if (this.limit > 0 && this.nodes > this.limit) {
+				this.stopped = true;
+			}
+			if (this.deadline != 0 && System.nanoTime() - this.deadline > 0) {
+				this.timedOut = true;
+				this.stopped = true;
+			}
+		}
+
+		void phaseOne(int twist, int flip, int slice, int togo, int depth, int previous) {
+			visit();
+			if (this.stopped) {
+				return;
+			}
+			if (togo == 0) {
+				// A phase 1 that ends with a move of phase 2 was already tried one move shorter
+				if (twist == 0 && flip == 0 && SLICE_POSITIONS[slice] == SLICE_GOAL
+						&& (depth == 0 || !isPhaseTwoMove(previous))) {
+					phaseTwo(depth);
+				}
+				return;
+			}
+			if (phaseOneDistance(twist, flip, slice) > togo) {
+				return;
+			}
+			for (int move = 0; move < Move.COUNT; move++) {
+				if (!Move.allowed(previous, move)) {
+					continue;
+				}
+				this.path[depth] = (byte) move;
+				phaseOne(TWIST_MOVE[twist * Move.COUNT + move], FLIP_MOVE[flip * Move.COUNT + move],
+						SLICE_MOVE[slice * Move.COUNT + move], togo - 1, depth + 1, move);
+				if (this.stopped) {
+					return;
+				}
+			}
+		}
+
+		/**
+		 * Finishes the phase 1 solution in the path with the shortest phase 2
+		 * that beats the best solution so far.
+		 */
+		private void phaseTwo(int phaseOneLength) {
+			int corners = this.corners;
+			int edgesSetOne = this.edgesSetOne;
+			int edgesSetTwo = this.edgesSetTwo;
+			for (int i = 0; i < phaseOneLength; i++) {
+				corners = MoveTables.moveCorners(corners, this.path[i]);
+				edgesSetOne = MoveTables.moveEdges(edgesSetOne, this.path[i]);
+				edgesSetTwo = MoveTables.moveEdges(edgesSetTwo, this.path[i]);
+			}
+			placeEdges(edgesSetOne, 0);
+			placeEdges(edgesSetTwo, 1);
+			for (int i = 0; i < this.others.length; i++) {
+				this.others[i] = POSITION_INDEX[this.edges[OTHER_POSITIONS[i]]];
+			}
+			for (int i = 0; i < this.slice.length; i++) {
+				this.slice[i] = this.edges[4 + i] - 4;
+			}
+			int corner = corners / TWISTS;
+			int edge = Cube.rankPermutation(this.others, this.others.length);
+			int slicePermutation = Cube.rankPermutation(this.slice, this.slice.length);
+
+			int previous = phaseOneLength > 0 ? this.path[phaseOneLength - 1] : Move.NONE;
+			int maxLength = Math.min(this.best - 1 - phaseOneLength, MAX_LENGTH - phaseOneLength);
+			for (int length = phaseTwoDistance(corner, edge, slicePermutation); length <= maxLength; length++) {
+				if (phaseTwo(corner, edge, slicePermutation, length, phaseOneLength, previous)) {
+					found(phaseOneLength + length);
+					return;
+				}
+				if (this.stopped) {
+					return;
+				}
+			}
+		}
+
+		private boolean phaseTwo(int corner, int edge, int slice, int togo, int depth, int previous) {
+			visit();
+			if (togo == 0) {
+				return corner == 0 && edge == 0 && slice == 0;
+			}
+			if (this.stopped || phaseTwoDistance(corner, edge, slice) > togo) {
+				return false;
+			}
+			for (int i = 0; i < PHASE_TWO_MOVES.length; i++) {
+				int move = PHASE_TWO_MOVES[i];
+				if (!Move.allowed(previous, move)) {
+					continue;
+				}
+				this.path[depth] = (byte) move;
+				if (phaseTwo(CORNER_MOVE[corner * PHASE_TWO_MOVES.length + i],
+						EDGE_MOVE[edge * PHASE_TWO_MOVES.length + i],
+						SLICE_PERMUTATION_MOVE[slice * PHASE_TWO_MOVES.length + i], togo - 1, depth + 1, move)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		/**
+		 * Records a solution that is shorter than the best so far.
+		 */
+		private void found(int length) {
+			this.best = length;
+			this.solution = Arrays.copyOf(this.path, length);
+			long now = System.nanoTime();
+			this.iterations.add(new Solution.Iteration(length, this.nodes - this.lastNodes, now - this.lastNanos));
+			this.lastNodes = this.nodes;
+			this.lastNanos = now;
+			// Without a target or a timeout the first solution is enough
+			if (length <= this.targetLength || (this.targetLength <= 0 && this.deadline == 0)) {
+				this.stopped = true;
+			}
+		}
+
+		/**
+		 * Writes which edge is at each position for one set of edges.
+		 */
+		private void placeEdges(int edges, int set) {
+			Cube.unrankPermutation(edges / Cube.EDGE_ORIENTATIONS, this.positions, 12);
+			for (int i = 0; i < this.positions.length; i++) {
+				this.edges[this.positions[i]] = set * Cube.EDGE_SET_SIZE + i;
+			}
+		}
+	}
+
+	private static boolean isPhaseTwoMove(int move) {
+		return Move.face(move) < 2 || Move.turns(move) == 2;
+	}
+
+	private static int phaseOneDistance(int twist, int flip, int slice) {
+		return Math.max(TWIST_SLICE_DISTANCE[twist * SLICES + slice], FLIP_SLICE_DISTANCE[flip * SLICES + slice]);
+	}
+
+	private static int phaseTwoDistance(int corner, int edge, int slice) {
+		return Math.max(CORNER_SLICE_DISTANCE[corner * SLICE_PERMUTATIONS + slice],
+				EDGE_SLICE_DISTANCE[edge * SLICE_PERMUTATIONS + slice]);
+	}
+
+	/**
+	 * The flips of the edges at positions 0 to 10, the last one follows from them.
+	 */
+	private static int flip(char[] state) {
+		int flip = 0;
+		for (int position = 0; position < 11; position++) {
+			flip |= Cube.edgeOrientationAt(state, position) << position;
+		}
+		return flip;
+	}
+
+	/**
+	 * The positions of the slice edges, one bit per position.
+	 */
+	private static int slicePositions(char[] state) {
+		int positions = 0;
+		for (int position = 0; position < 12; position++) {
+			int edge = Cube.edgeAt(state, position);
+			if (edge >= 4 && edge < 8) {
+				positions |= 1 << position;
+			}
+		}
+		return positions;
+	}
+
+	private static int[] initTwistMove() {
+		int[] table = new int[TWISTS * Move.COUNT];
+		int[] twists = new int[8];
+		int[] moved = new int[8];
+		for (int rank = 0; rank < TWISTS; rank++) {
+			Cube.unrankCornerOrientation(rank, twists);
+			for (int move = 0; move < Move.COUNT; move++) {
+				for (int position = 0; position < 8; position++) {
+					moved[MoveTables.CORNER_POSITIONS[move][position]] =
+							(twists[position] + MoveTables.CORNER_TWISTS[move][position]) % 3;
+				}
+				table[rank * Move.COUNT + move] = Cube.rankCornerOrientation(moved);
+			}
+		}
+		return table;
+	}
+
+	private static int[] initFlipMove() {
+		int[] table = new int[FLIPS * Move.COUNT];
+		for (int rank = 0; rank < FLIPS; rank++) {
+			// The flips of all the edges add up to an even number
+			int flips = rank | (Integer.bitCount(rank) & 1) << 11;
+			for (int move = 0; move < Move.COUNT; move++) {
+				int moved = 0;
+				for (int position = 0; position < 12; position++) {
+					int flip = ((flips >>> position) & 1) ^ MoveTables.EDGE_FLIPS[move][position];
+					moved |= flip << MoveTables.EDGE_POSITIONS[move][position];
+				}
+				table[rank * Move.COUNT + move] = moved & (FLIPS - 1);
+			}
+		}
+		return table;
+	}
+
+	private static int[] initSliceMove() {
+		int[] table = new int[SLICES * Move.COUNT];
+		for (int rank = 0; rank < SLICES; rank++) {
+			for (int move = 0; move < Move.COUNT; move++) {
+				int moved = 0;
+				for (int position = 0; position < 12; position++) {
+					if ((SLICE_POSITIONS[rank] & (1 << position)) != 0) {
+						moved |= 1 << MoveTables.EDGE_POSITIONS[move][position];
+					}
+				}
+				table[rank * Move.COUNT + move] = SLICE_RANK[moved];
+			}
+		}
+		return table;
+	}
+
+	private static int[] initCornerMove() {
+		int[] table = new int[CORNER_PERMUTATIONS * PHASE_TWO_MOVES.length];
+		int[] corners = new int[8];
+		int[] moved = new int[8];
+		for (int rank = 0; rank < CORNER_PERMUTATIONS; rank++) {
+			Cube.unrankPermutation(rank, corners, 8);
+			for (int i = 0; i < PHASE_TWO_MOVES.length; i++) {
+				for (int position = 0; position < 8; position++) {
+					moved[MoveTables.CORNER_POSITIONS[PHASE_TWO_MOVES[i]][position]] = corners[position];
+				}
+				table[rank * PHASE_TWO_MOVES.length + i] = Cube.rankPermutation(moved, 8);
+			}
+		}
+		return table;
+	}
+
+	private static int[] initEdgeMove() {
+		int[] table = new int[EDGE_PERMUTATIONS * PHASE_TWO_MOVES.length];
+		int[] edges = new int[8];
+		int[] moved = new int[8];
+		for (int rank = 0; rank < EDGE_PERMUTATIONS; rank++) {
+			Cube.unrankPermutation(rank, edges, 8);
+			for (int i = 0; i < PHASE_TWO_MOVES.length; i++) {
+				for (int j = 0; j < OTHER_POSITIONS.length; j++) {
+					int target = MoveTables.EDGE_POSITIONS[PHASE_TWO_MOVES[i]][OTHER_POSITIONS[j]];
+					moved[POSITION_INDEX[target]] = edges[j];
+				}
+				table[rank * PHASE_TWO_MOVES.length + i] = Cube.rankPermutation(moved, 8);
+			}
+		}
+		return table;
+	}
+
+	private static int[] initSlicePermutationMove() {
+		int[] table = new int[SLICE_PERMUTATIONS * PHASE_TWO_MOVES.length];
+		int[] edges = new int[4];
+		int[] moved = new int[4];
+		for (int rank = 0; rank < SLICE_PERMUTATIONS; rank++) {
+			Cube.unrankPermutation(rank, edges, 4);
+			for (int i = 0; i < PHASE_TWO_MOVES.length; i++) {
+				for (int j = 0; j < 4; j++) {
+					moved[MoveTables.EDGE_POSITIONS[PHASE_TWO_MOVES[i]][4 + j] - 4] = edges[j];
+				}
+				table[rank * PHASE_TWO_MOVES.length + i] = Cube.rankPermutation(moved, 4);
+			}
+		}
+		return table;
+	}
+
+	/**
+	 * Finds the distance of every pair of coordinates to the goal, which is
+	 * 0 for both, with a breadth-first search.
+	 * @param sizeA the number of values of the first coordinate
+	 * @param sizeB the number of values of the second coordinate
+	 * @param moveA the transitions of the first coordinate
+	 * @param moveB the transitions of the second coordinate
+	 * @param moves the number of moves in the transition tables
+	 * @return the distances, indexed by a * sizeB + b
+	 */
+	private static byte[] distances(int sizeA, int sizeB, int[] moveA, int[] moveB, int moves) {
+		byte[] table = new byte[sizeA * sizeB];
+		Arrays.fill(table, (byte) -1);
+		// The goal of the slice positions is not rank 0, so start from it instead
+		int goal = moveB == SLICE_MOVE ? SLICE_RANK[SLICE_GOAL] : 0;
+		table[goal] = 0;
+		int found = 1;
+		for (int depth = 0; found > 0; depth++) {
+			found = 0;
+			for (int i = 0; i < table.length; i++) {
+				if (table[i] != depth) {
+					continue;
+				}
+				int a = i / sizeB;
+				int b = i % sizeB;
+				for (int move = 0; move < moves; move++) {
+					int next = moveA[a * moves + move] * sizeB + moveB[b * moves + move];
+					if (table[next] < 0) {
+						table[next] = (byte) (depth + 1);
+						found++;
+					}
+				}
+			}
+		}
+		return table;
+	}
+}
@@ -1,17 +1,14 @@
+# The metric to generate the tables for, htm or qtm
+METRIC=${1:-htm}
 # Compile all of the java files
-javac Cube.java;
-javac CubeNode.java;
-javac CornerHeuristics.java;
-javac EdgeHeuristics.java;
-# Run the Heuristics generation class and pipe the
-# output into a csv file
+javac *.java;
+# Run the Heuristics generation class, which writes
+# the table to a binary PDB file
 echo "Generate Corner heuristics..."
-java CornerHeuristics -Xmx2048M > corners.csv;
-# Generate the first set of edge heuristics and pipe
-# the output into a csv file
+java -Xmx2048M CornerHeuristics corners.pdb $METRIC;
+# Generate the first set of edge heuristics
 echo "Generate Edge Set One heuristics..."
-java EdgeHeuristics 0 -Xmx2048M > edgesSetOne.csv;
-# Generate the second set of edge heuristics and pipe
-# the output into a csv file
+java -Xmx2048M EdgeHeuristics 0 edgesSetOne.pdb $METRIC;
+# Generate the second set of edge heuristics
 echo "Generate Edge Set Two heuristics..."
-java EdgeHeuristics 1 -Xmx2048M > edgesSetTwo.csv;
\ No newline at end of file
+java -Xmx2048M EdgeHeuristics 1 edgesSetTwo.pdb $METRIC;